@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wrapper.cli.CommandLineParser;
+import org.apache.maven.wrapper.cli.SystemPropertiesCommandLineConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the system properties of the Maven command line by {@link CommandLineParser}, set up like the wrapper does
+ * on every invocation, with command lines mixing goals, options and properties like the ones of CI builds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandLineParserBenchmark {
+    /** Number of arguments of the command line. */
+    @Param({"10", "100", "1000"})
+    private int arguments;
+
+    private String[] args;
+
+    @Setup(Level.Trial)
+    public void createArguments() {
+        List<String> list = new ArrayList<>();
+        String[] fixed = {"-B", "-ntp", "clean", "verify", "-pl", "module-a,module-b", "-am", "-T", "1C"};
+        for (int i = 0; list.size() < arguments; i++) {
+            if (i < fixed.length) {
+                list.add(fixed[i]);
+            } else if (i % 2 == 0) {
+                list.add("-Dproperty." + i + "=value-" + i);
+            } else {
+                list.add("-D");
+                list.add("property." + i + "=value with spaces " + i);
+            }
+        }
+        args = list.subList(0, arguments).toArray(new String[0]);
+    }
+
+    @Benchmark
+    public Map<String, String> parse() {
+        SystemPropertiesCommandLineConverter converter = new SystemPropertiesCommandLineConverter();
+        CommandLineParser commandLineParser = new CommandLineParser();
+        converter.configure(commandLineParser);
+        commandLineParser.allowUnknownOptions();
+        return converter.convert(commandLineParser.parse(args));
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wrapper.PathAssembler;
+import org.apache.maven.wrapper.WrapperConfiguration;
+import org.apache.maven.wrapper.WrapperExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of the wrapper properties by {@link WrapperExecutor}, and resolution of the local distribution directories by
+ * {@link PathAssembler}, both run on every invocation of the wrapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationBenchmark {
+    private static final String PROPERTIES = "wrapperVersion=3.3.4\n"
+            + "distributionType=bin\n"
+            + "distributionUrl=https://repo.maven.apache.org/maven2/org/apache/maven/apache-maven/3.9.9/"
+            + "apache-maven-3.9.9-bin.zip\n"
+            + "distributionSha256Sum=4ec3f26fb1a692473aea0235c300bd20f0f9fe741947c82c1234cefd76ac3a3c\n"
+            + "wrapperUrl=https://repo.maven.apache.org/maven2/org/apache/maven/wrapper/maven-wrapper/3.3.4/"
+            + "maven-wrapper-3.3.4.jar\n"
+            + "validateInstallation=true\n"
+            + "fetchDistributionChecksum=true\n";
+
+    private Path dir;
+
+    private Path propertiesFile;
+
+    private WrapperConfiguration configuration;
+
+    private PathAssembler pathAssembler;
+
+    @Setup(Level.Trial)
+    public void writeProperties() throws IOException {
+        dir = Files.createTempDirectory("configuration-benchmark");
+        propertiesFile = dir.resolve(".mvn/wrapper/maven-wrapper.properties");
+        Files.createDirectories(propertiesFile.getParent());
+        Files.write(propertiesFile, PROPERTIES.getBytes(StandardCharsets.UTF_8));
+        configuration = WrapperExecutor.forWrapperPropertiesFile(propertiesFile).getConfiguration();
+        pathAssembler = new PathAssembler(Paths.get(System.getProperty("user.home"), ".m2"));
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteProperties() throws IOException {
+        SyntheticDistribution.delete(dir);
+    }
+
+    @Benchmark
+    public WrapperConfiguration loadProperties() {
+        return WrapperExecutor.forWrapperPropertiesFile(propertiesFile).getConfiguration();
+    }
+
+    @Benchmark
+    public PathAssembler.LocalDistribution getDistribution() {
+        return pathAssembler.getDistribution(configuration);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wrapper.FileDigester;
+import org.apache.maven.wrapper.Verifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Hashing of a distribution archive by {@link FileDigester}, against the stream based hashing the verifier did before,
+ * and with the SHA-256 and SHA-512 sums computed in one pass or in two.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DigestBenchmark {
+    /** Size of the hashed file in bytes: Maven 3.9 and a large distribution. */
+    @Param({"9437184", "104857600"})
+    private long size;
+
+    private Path dir;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException {
+        dir = Files.createTempDirectory("digest-benchmark");
+        file = dir.resolve("apache-maven-3.9.9-bin.zip");
+        SyntheticDistribution.writeRandom(file, size);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        SyntheticDistribution.delete(dir);
+    }
+
+    /**
+     * The hashing of the verifier before {@link FileDigester}: an 8 KiB stream buffer and a hex conversion by
+     * {@link String#format(String, Object...)}.
+     */
+    @Benchmark
+    public String streamSha256() throws Exception {
+        MessageDigest digest = MessageDigest.getInstance(Verifier.SHA_256_ALGORITHM);
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            byte[] buffer = new byte[1024 * 8];
+            int length;
+            while ((length = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, length);
+            }
+        }
+        byte[] hash = digest.digest();
+        StringBuilder actualSum = new StringBuilder(hash.length * 2);
+        for (byte aByte : hash) {
+            actualSum.append(String.format("%02x", aByte));
+        }
+        return actualSum.toString();
+    }
+
+    @Benchmark
+    public String fileDigesterSha256() throws Exception {
+        return FileDigester.toHex(new FileDigester(Verifier.SHA_256_ALGORITHM).digest(file)[0]);
+    }
+
+    @Benchmark
+    public byte[][] fileDigesterSha256AndSha512() throws Exception {
+        return new FileDigester(Verifier.SHA_256_ALGORITHM, Verifier.SHA_512_ALGORITHM).digest(file);
+    }
+
+    @Benchmark
+    public byte[][] fileDigesterSha256ThenSha512() throws Exception {
+        return new byte[][] {
+            new FileDigester(Verifier.SHA_256_ALGORITHM).digest(file)[0],
+            new FileDigester(Verifier.SHA_512_ALGORITHM).digest(file)[0]
+        };
+    }
+}
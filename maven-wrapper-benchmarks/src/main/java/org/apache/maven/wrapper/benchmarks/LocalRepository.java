@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Repository served over HTTP from a directory by an in-process server on the loopback interface, standing in for
+ * Maven Central so that downloads measure the wrapper rather than the network.
+ */
+final class LocalRepository implements Closeable {
+    private final Path dir;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    /**
+     * Starts serving a directory, on a free port.
+     *
+     * @param dir the directory laid out like a Maven repository
+     */
+    LocalRepository(Path dir) throws IOException {
+        this.dir = dir.toAbsolutePath().normalize();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "local-repository");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return the URL of the repository, without a trailing slash
+     */
+    String getUrl() {
+        return "http://" + server.getAddress().getAddress().getHostAddress() + ":" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Path file = dir.resolve(exchange.getRequestURI().getPath().substring(1)).normalize();
+            boolean head = "HEAD".equals(exchange.getRequestMethod());
+            if (!file.startsWith(dir) || !Files.isRegularFile(file)) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (!head && !"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+            } else {
+                long size = Files.size(file);
+                exchange.getResponseHeaders().set("Content-Length", Long.toString(size));
+                exchange.sendResponseHeaders(200, head ? -1 : size);
+                if (!head) {
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        Files.copy(file, out);
+                    }
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
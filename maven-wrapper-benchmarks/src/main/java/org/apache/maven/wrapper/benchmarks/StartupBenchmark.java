@@ -0,0 +1,471 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.codehaus.plexus.classworlds.launcher.Launcher;
+
+/**
+ * Measures the startup of Maven through each type of wrapper distribution, the way users run it: a new {@code mvnw}
+ * process in a project, with the distributions downloaded from a {@link LocalRepository} serving a
+ * {@link SyntheticDistribution} of Maven and the wrapper jar. Each iteration runs every type cold, with an empty Maven
+ * user home and, for the types downloading it, without the wrapper jar, then warm, with everything installed. Both runs
+ * are timed up to the first line of the output of Maven and up to the exit of {@code mvnw}.
+ *
+ * <p>The types run one after the other in each iteration, so that a disturbance of the machine affects all of them
+ * alike. The report gives the median, mean, minimum and maximum of each time, and {@code -o} writes every sample to a
+ * CSV file to compare runs, for instance before and after a change. Run it with:
+ *
+ * <pre>
+ * java -cp maven-wrapper-benchmarks/target/benchmarks.jar org.apache.maven.wrapper.benchmarks.StartupBenchmark
+ *     [-i iterations] [-wi warmup iterations] [-t only-script,script,bin,source] [-o samples.csv]
+ * </pre>
+ *
+ * <p>The scripts are POSIX shell ones, the Windows scripts are not measured.
+ */
+public final class StartupBenchmark {
+    /** The types of wrapper distributions, with whether their {@code mvnw} downloads the wrapper jar. */
+    enum Type {
+        ONLY_SCRIPT("only-script", false),
+        SCRIPT("script", true),
+        BIN("bin", false),
+        SOURCE("source", true);
+
+        private final String id;
+
+        private final boolean downloadsWrapperJar;
+
+        Type(String id, boolean downloadsWrapperJar) {
+            this.id = id;
+            this.downloadsWrapperJar = downloadsWrapperJar;
+        }
+
+        static Type of(String id) {
+            for (Type type : values()) {
+                if (type.id.equals(id)) {
+                    return type;
+                }
+            }
+            throw new IllegalArgumentException("Unknown distribution type " + id);
+        }
+    }
+
+    /** The times measured in each iteration, for each type. */
+    enum Metric {
+        COLD_FIRST_LINE("cold first line"),
+        COLD_EXIT("cold exit"),
+        WARM_FIRST_LINE("warm first line"),
+        WARM_EXIT("warm exit");
+
+        private final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final String POM_PROPERTIES =
+            "/META-INF/maven/org.apache.maven.wrapper/maven-wrapper/pom.properties";
+
+    private final Path workDir;
+
+    private final String repositoryUrl;
+
+    private final String javaHome;
+
+    /** The {@code PATH} without {@code wget} and {@code curl}, for the source type to compile its downloader. */
+    private final String pathWithoutDownloaders;
+
+    private final Map<Type, Map<Metric, List<Double>>> samples = new EnumMap<>(Type.class);
+
+    private StartupBenchmark(Path workDir, String repositoryUrl) throws IOException {
+        this.workDir = workDir;
+        this.repositoryUrl = repositoryUrl;
+        this.javaHome = javaHome();
+        this.pathWithoutDownloaders = pathWithoutDownloaders(workDir.resolve("path"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        int iterations = 10;
+        int warmupIterations = 1;
+        List<Type> types = Arrays.asList(Type.values());
+        Path csvFile = null;
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                usage();
+            } else if ("-i".equals(args[i])) {
+                iterations = Integer.parseInt(args[i + 1]);
+            } else if ("-wi".equals(args[i])) {
+                warmupIterations = Integer.parseInt(args[i + 1]);
+            } else if ("-t".equals(args[i])) {
+                types = new ArrayList<>();
+                for (String id : args[i + 1].split(",")) {
+                    types.add(Type.of(id.trim()));
+                }
+            } else if ("-o".equals(args[i])) {
+                csvFile = Paths.get(args[i + 1]);
+            } else {
+                usage();
+            }
+        }
+
+        Path workDir = Files.createTempDirectory("startup-benchmark");
+        try {
+            Path repositoryDir = workDir.resolve("repository");
+            String wrapperVersion = writeRepository(repositoryDir);
+            try (LocalRepository repository = new LocalRepository(repositoryDir)) {
+                StartupBenchmark benchmark = new StartupBenchmark(workDir, repository.getUrl());
+                for (Type type : types) {
+                    benchmark.install(type, wrapperVersion);
+                }
+                for (int i = 0; i < warmupIterations + iterations; i++) {
+                    System.out.printf(
+                            Locale.ROOT,
+                            "# %s iteration %d%n",
+                            i < warmupIterations ? "Warmup" : "Measurement",
+                            i < warmupIterations ? i + 1 : i + 1 - warmupIterations);
+                    for (Type type : types) {
+                        benchmark.iterate(type, i >= warmupIterations);
+                    }
+                }
+                benchmark.report(System.out, iterations, warmupIterations);
+                if (csvFile != null) {
+                    benchmark.writeCsv(csvFile);
+                }
+            }
+        } finally {
+            SyntheticDistribution.delete(workDir);
+        }
+    }
+
+    private static void usage() {
+        System.err.println("Usage: StartupBenchmark [-i iterations] [-wi warmup iterations]"
+                + " [-t only-script,script,bin,source] [-o samples.csv]");
+        System.exit(1);
+    }
+
+    /**
+     * Writes the Maven distribution, in both formats of Maven Central, and the wrapper jar to the repository.
+     *
+     * @return the version of the wrapper
+     */
+    private static String writeRepository(Path repositoryDir) throws IOException {
+        String version = SyntheticDistribution.VERSION;
+        Path distributionDir = repositoryDir.resolve("org/apache/maven/apache-maven/" + version);
+        Files.createDirectories(distributionDir);
+        for (String extension : new String[] {".zip", ".tar.gz"}) {
+            SyntheticDistribution.write(
+                    distributionDir.resolve("apache-maven-" + version + "-bin" + extension), 70, 130 * 1024);
+        }
+
+        Properties pomProperties = new Properties();
+        try (InputStream in = StartupBenchmark.class.getResourceAsStream(POM_PROPERTIES)) {
+            pomProperties.load(in);
+        }
+        String wrapperVersion = pomProperties.getProperty("version");
+        Path wrapperDir = repositoryDir.resolve("org/apache/maven/wrapper/maven-wrapper/" + wrapperVersion);
+        Files.createDirectories(wrapperDir);
+        // the wrapper jar of the bin distribution is the released one
+        Path binDir = Files.createTempDirectory(repositoryDir, "bin");
+        unpack(Type.BIN, binDir);
+        Files.move(
+                binDir.resolve(".mvn/wrapper/maven-wrapper.jar"),
+                wrapperDir.resolve("maven-wrapper-" + wrapperVersion + ".jar"));
+        SyntheticDistribution.delete(binDir);
+        return wrapperVersion;
+    }
+
+    /**
+     * Installs a wrapper distribution in a new project, like the wrapper plugin does.
+     */
+    private void install(Type type, String wrapperVersion) throws IOException {
+        Path projectDir = workDir.resolve(type.id).resolve("project");
+        unpack(type, projectDir);
+        String distributionUrl = repositoryUrl + "/org/apache/maven/apache-maven/" + SyntheticDistribution.VERSION
+                + "/apache-maven-" + SyntheticDistribution.VERSION + "-bin.zip";
+        StringBuilder properties = new StringBuilder()
+                .append("wrapperVersion=")
+                .append(wrapperVersion)
+                .append('\n')
+                .append("distributionType=")
+                .append(type.id)
+                .append('\n')
+                .append("distributionUrl=")
+                .append(distributionUrl)
+                .append('\n');
+        if (type != Type.ONLY_SCRIPT) {
+            properties
+                    .append("wrapperUrl=")
+                    .append(repositoryUrl)
+                    .append("/org/apache/maven/wrapper/maven-wrapper/")
+                    .append(wrapperVersion)
+                    .append("/maven-wrapper-")
+                    .append(wrapperVersion)
+                    .append(".jar\n");
+        }
+        Files.createDirectories(projectDir.resolve(".mvn/wrapper"));
+        Files.write(
+                projectDir.resolve(".mvn/wrapper/maven-wrapper.properties"),
+                properties.toString().getBytes(StandardCharsets.UTF_8));
+        samples.put(type, new EnumMap<>(Metric.class));
+    }
+
+    /**
+     * Unpacks a wrapper distribution, keeping the scripts executable, and leaving the debug scripts out like the
+     * wrapper plugin does by default.
+     */
+    private static void unpack(Type type, Path dir) throws IOException {
+        String resource = "/distributions/maven-wrapper-distribution-" + type.id + ".zip";
+        Path zip = Files.createTempFile("maven-wrapper-distribution", ".zip");
+        try {
+            try (InputStream in = StartupBenchmark.class.getResourceAsStream(resource)) {
+                if (in == null) {
+                    throw new IllegalStateException(resource + " not found, build with -Pbenchmarks");
+                }
+                Files.copy(in, zip, StandardCopyOption.REPLACE_EXISTING);
+            }
+            try (ZipFile zipFile = ZipFile.builder().setPath(zip).get()) {
+                Enumeration<ZipArchiveEntry> entries = zipFile.getEntries();
+                while (entries.hasMoreElements()) {
+                    ZipArchiveEntry entry = entries.nextElement();
+                    Path file = dir.resolve(entry.getName()).normalize();
+                    if (entry.isDirectory() || entry.getName().contains("Debug") || !file.startsWith(dir)) {
+                        continue;
+                    }
+                    Files.createDirectories(file.getParent());
+                    try (InputStream in = zipFile.getInputStream(entry)) {
+                        Files.copy(in, file);
+                    }
+                    if ((entry.getUnixMode() & 0111) != 0 && !file.toFile().setExecutable(true)) {
+                        throw new IOException("Could not make " + file + " executable");
+                    }
+                }
+            }
+        } finally {
+            Files.delete(zip);
+        }
+    }
+
+    /**
+     * Runs a type cold then warm.
+     *
+     * @param measured whether to record the times, not in the warmup iterations
+     */
+    private void iterate(Type type, boolean measured) throws IOException, InterruptedException {
+        Path typeDir = workDir.resolve(type.id);
+        SyntheticDistribution.delete(typeDir.resolve("m2"));
+        if (type.downloadsWrapperJar) {
+            Files.deleteIfExists(typeDir.resolve("project/.mvn/wrapper/maven-wrapper.jar"));
+        }
+        double[] cold = run(type);
+        double[] warm = run(type);
+        System.out.printf(
+                Locale.ROOT,
+                "%-12s cold %8.1f ms first line %8.1f ms exit, warm %8.1f ms first line %8.1f ms exit%n",
+                type.id,
+                cold[0],
+                cold[1],
+                warm[0],
+                warm[1]);
+        if (measured) {
+            Map<Metric, List<Double>> typeSamples = samples.get(type);
+            typeSamples.computeIfAbsent(Metric.COLD_FIRST_LINE, m -> new ArrayList<>()).add(cold[0]);
+            typeSamples.computeIfAbsent(Metric.COLD_EXIT, m -> new ArrayList<>()).add(cold[1]);
+            typeSamples.computeIfAbsent(Metric.WARM_FIRST_LINE, m -> new ArrayList<>()).add(warm[0]);
+            typeSamples.computeIfAbsent(Metric.WARM_EXIT, m -> new ArrayList<>()).add(warm[1]);
+        }
+    }
+
+    /**
+     * @return the milliseconds from the start of {@code mvnw} to the first line of Maven, and to its exit
+     */
+    private double[] run(Type type) throws IOException, InterruptedException {
+        Path typeDir = workDir.resolve(type.id);
+        ProcessBuilder builder = new ProcessBuilder(typeDir.resolve("project/mvnw").toString(), "-v")
+                .directory(typeDir.resolve("project").toFile())
+                .redirectErrorStream(true);
+        Map<String, String> environment = builder.environment();
+        environment.keySet().removeIf(key -> key.startsWith("MVNW_") || key.startsWith("MAVEN_"));
+        environment.put("MAVEN_USER_HOME", typeDir.resolve("m2").toString());
+        environment.put("JAVA_HOME", javaHome);
+        if (type == Type.SOURCE && pathWithoutDownloaders != null) {
+            environment.put("PATH", pathWithoutDownloaders);
+        }
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        long firstLine = -1;
+        StringBuilder output = new StringBuilder();
+        try (BufferedReader reader =
+                new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line; (line = reader.readLine()) != null; ) {
+                if (firstLine < 0 && Launcher.FIRST_LINE.equals(line)) {
+                    firstLine = System.nanoTime() - start;
+                }
+                output.append(line).append('\n');
+            }
+        }
+        int exitCode = process.waitFor();
+        long exit = System.nanoTime() - start;
+        if (exitCode != 0 || firstLine < 0) {
+            throw new IllegalStateException(
+                    "The " + type.id + " wrapper did not launch Maven, exit code " + exitCode + ":\n" + output);
+        }
+        return new double[] {firstLine / 1e6, exit / 1e6};
+    }
+
+    private void report(PrintStream out, int iterations, int warmupIterations) {
+        out.printf(
+                Locale.ROOT,
+                "%n# Startup of Maven %s through the wrapper, %d iterations after %d warmup iterations%n",
+                SyntheticDistribution.VERSION,
+                iterations,
+                warmupIterations);
+        out.printf(
+                Locale.ROOT,
+                "# Java %s (%s), %s %s %s%n",
+                System.getProperty("java.version"),
+                System.getProperty("java.vendor"),
+                System.getProperty("os.name"),
+                System.getProperty("os.version"),
+                System.getProperty("os.arch"));
+        out.printf(
+                Locale.ROOT,
+                "%n%-12s %-16s %10s %10s %10s %10s%n",
+                "Type",
+                "Time (ms)",
+                "Median",
+                "Mean",
+                "Min",
+                "Max");
+        samples.forEach((type, typeSamples) -> typeSamples.forEach((metric, values) -> {
+            List<Double> sorted = new ArrayList<>(values);
+            Collections.sort(sorted);
+            int size = sorted.size();
+            double median = size % 2 == 1
+                    ? sorted.get(size / 2)
+                    : (sorted.get(size / 2 - 1) + sorted.get(size / 2)) / 2;
+            double mean = sorted.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            out.printf(
+                    Locale.ROOT,
+                    "%-12s %-16s %10.1f %10.1f %10.1f %10.1f%n",
+                    type.id,
+                    metric.label,
+                    median,
+                    mean,
+                    sorted.get(0),
+                    sorted.get(size - 1));
+        }));
+    }
+
+    private void writeCsv(Path csvFile) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            writer.write("type,metric,iteration,millis\n");
+            for (Map.Entry<Type, Map<Metric, List<Double>>> typeSamples : samples.entrySet()) {
+                for (Map.Entry<Metric, List<Double>> metricSamples : typeSamples.getValue().entrySet()) {
+                    List<Double> values = metricSamples.getValue();
+                    for (int i = 0; i < values.size(); i++) {
+                        writer.write(String.format(
+                                Locale.ROOT,
+                                "%s,%s,%d,%.3f%n",
+                                typeSamples.getKey().id,
+                                metricSamples.getKey().label,
+                                i + 1,
+                                values.get(i)));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the JDK to run the wrapper with, the source type compiling its downloader with it
+     */
+    private static String javaHome() {
+        String javaHome = System.getenv("JAVA_HOME");
+        if (javaHome != null && !javaHome.isEmpty()) {
+            return javaHome;
+        }
+        Path home = Paths.get(System.getProperty("java.home"));
+        // the JRE of a Java 8 JDK
+        if (home.endsWith("jre") && Files.isRegularFile(home.getParent().resolve("bin/javac"))) {
+            home = home.getParent();
+        }
+        return home.toString();
+    }
+
+    /**
+     * Links the commands of the {@code PATH} but {@code wget} and {@code curl} in a directory, so that {@code mvnw}
+     * falls back to the downloader of the source type.
+     *
+     * @return the directory, or {@code null} if neither command is on the {@code PATH}
+     */
+    private static String pathWithoutDownloaders(Path dir) throws IOException {
+        String path = System.getenv("PATH");
+        if (path == null) {
+            return null;
+        }
+        List<Path> commands = new ArrayList<>();
+        boolean hidden = false;
+        for (String entry : path.split(File.pathSeparator)) {
+            Path pathDir = Paths.get(entry.isEmpty() ? "." : entry);
+            if (!Files.isDirectory(pathDir)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.list(pathDir)) {
+                commands.addAll(files.collect(Collectors.toList()));
+            }
+        }
+        Files.createDirectories(dir);
+        for (Path command : commands) {
+            String name = command.getFileName().toString();
+            if ("wget".equals(name) || "curl".equals(name)) {
+                hidden = true;
+            } else if (Files.notExists(dir.resolve(name)) && Files.isExecutable(command)) {
+                Files.createSymbolicLink(dir.resolve(name), command.toAbsolutePath());
+            }
+        }
+        return hidden ? dir.toString() : null;
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.compressors.gzip.GzipCompressorOutputStream;
+import org.codehaus.plexus.classworlds.launcher.Launcher;
+
+/**
+ * Generates archives laid out like the Apache Maven distributions, so that the benchmarks run offline. Libraries are
+ * random, hence incompressible like real jars, and text files are repetitive, the content being the same for a given
+ * size on every run. The distributions can be launched: {@code bin/mvn} starts the stand-in {@link Launcher} from
+ * {@code boot} like Maven starts the class worlds launcher.
+ */
+final class SyntheticDistribution {
+    static final String VERSION = "3.9.9";
+
+    private static final String LAUNCHER_JAR = "boot/plexus-classworlds-2.8.0.jar";
+
+    private static final String MVN_SCRIPT = "#!/bin/sh\n"
+            + "MAVEN_HOME=$(cd \"$(dirname \"$0\")/..\" && pwd -P)\n"
+            + "if [ -n \"$JAVA_HOME\" ]; then JAVACMD=\"$JAVA_HOME/bin/java\"; else JAVACMD=java; fi\n"
+            + "exec \"$JAVACMD\" $MAVEN_OPTS -classpath \"$MAVEN_HOME/" + LAUNCHER_JAR + "\" \\\n"
+            + "  \"-Dclassworlds.conf=$MAVEN_HOME/bin/m2.conf\" \"-Dmaven.home=$MAVEN_HOME\" \\\n"
+            + "  " + Launcher.class.getName() + " \"$@\"\n";
+
+    private SyntheticDistribution() {}
+
+    /**
+     * @param archive the archive to write, a {@code .tar.gz} one or else a zip one
+     * @param libraries the number of libraries, Maven 3.9 has about 70
+     * @param librarySize the average size of a library, Maven 3.9 has about 130 KiB
+     */
+    static void write(Path archive, int libraries, int librarySize) throws IOException {
+        Map<String, Entry> entries = entries(libraries, librarySize);
+        if (archive.getFileName().toString().endsWith(".tar.gz")) {
+            try (TarArchiveOutputStream out =
+                    new TarArchiveOutputStream(new GzipCompressorOutputStream(Files.newOutputStream(archive)))) {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getKey());
+                    if (entry.getValue().content != null) {
+                        tarEntry.setMode(entry.getValue().mode);
+                        tarEntry.setSize(entry.getValue().content.length);
+                    }
+                    out.putArchiveEntry(tarEntry);
+                    entry.getValue().writeTo(out);
+                    out.closeArchiveEntry();
+                }
+            }
+        } else {
+            try (ZipArchiveOutputStream out = new ZipArchiveOutputStream(Files.newOutputStream(archive))) {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    ZipArchiveEntry zipEntry = new ZipArchiveEntry(entry.getKey());
+                    zipEntry.setUnixMode(entry.getValue().mode);
+                    out.putArchiveEntry(zipEntry);
+                    entry.getValue().writeTo(out);
+                    out.closeArchiveEntry();
+                }
+            }
+        }
+    }
+
+    private static Map<String, Entry> entries(int libraries, int librarySize) throws IOException {
+        Random random = new Random(libraries * 31L + librarySize);
+        String root = "apache-maven-" + VERSION + "/";
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        for (String dir : new String[] {"", "bin/", "boot/", "conf/", "conf/logging/", "lib/", "lib/ext/"}) {
+            entries.put(root + dir, new Entry(null, 040755));
+        }
+        entries.put(root + "bin/mvn", new Entry(MVN_SCRIPT.getBytes(StandardCharsets.UTF_8), 0100755));
+        for (String file : new String[] {"bin/mvn.cmd", "bin/mvnDebug", "bin/mvnDebug.cmd", "bin/m2.conf"}) {
+            entries.put(root + file, new Entry(text(4 * 1024), 0100644));
+        }
+        for (String file : new String[] {"conf/settings.xml", "conf/toolchains.xml", "LICENSE", "NOTICE"}) {
+            entries.put(root + file, new Entry(text(12 * 1024), 0100644));
+        }
+        entries.put(root + "conf/logging/simplelogger.properties", new Entry(text(2 * 1024), 0100644));
+        entries.put(root + LAUNCHER_JAR, new Entry(launcherJar(), 0100644));
+        for (int i = 0; i < libraries; i++) {
+            // sizes from a tenth to twice the average, like the mix of small and large libraries
+            byte[] content = new byte[librarySize / 10 + random.nextInt(librarySize * 19 / 10)];
+            random.nextBytes(content);
+            entries.put(root + "lib/library-" + i + ".jar", new Entry(content, 0100644));
+        }
+        return entries;
+    }
+
+    private static byte[] text(int size) {
+        byte[] line = "# Licensed to the Apache Software Foundation (ASF) under one or more contributor license\n"
+                .getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + line.length);
+        for (int written = 0; written < size; written += line.length) {
+            out.write(line, 0, line.length);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] launcherJar() throws IOException {
+        String name = Launcher.class.getName().replace('.', '/') + ".class";
+        ByteArrayOutputStream jar = new ByteArrayOutputStream();
+        try (JarOutputStream out = new JarOutputStream(jar);
+                InputStream in = Launcher.class.getClassLoader().getResourceAsStream(name)) {
+            out.putNextEntry(new JarEntry(name));
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) != -1; ) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return jar.toByteArray();
+    }
+
+    /**
+     * An entry of a distribution, a directory if it has no content.
+     */
+    private static final class Entry {
+        private final byte[] content;
+
+        private final int mode;
+
+        Entry(byte[] content, int mode) {
+            this.content = content;
+            this.mode = mode;
+        }
+
+        void writeTo(OutputStream out) throws IOException {
+            if (content != null) {
+                out.write(content);
+            }
+        }
+    }
+
+    /**
+     * Writes a file of random content.
+     */
+    static void writeRandom(Path file, long size) throws IOException {
+        Random random = new Random(size);
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += buffer.length) {
+                random.nextBytes(buffer);
+                out.write(buffer, 0, (int) Math.min(buffer.length, size - written));
+            }
+        }
+    }
+
+    static void delete(Path dir) throws IOException {
+        if (Files.notExists(dir)) {
+            return;
+        }
+        Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wrapper.Installer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of a distribution archive by {@link Installer#unzip(Path, Path)}, from the size of the Maven Daemon client
+ * to the size of Maven 3.9.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class UnzipBenchmark {
+    /** Number of libraries of the archive, with an average size of 130 KiB. */
+    @Param({"10", "70"})
+    private int libraries;
+
+    private Path dir;
+
+    private Path zip;
+
+    private Path dest;
+
+    private Installer installer;
+
+    @Setup(Level.Trial)
+    public void createArchive() throws IOException {
+        dir = Files.createTempDirectory("unzip-benchmark");
+        zip = dir.resolve("apache-maven-3.9.9-bin.zip");
+        SyntheticDistribution.write(zip, libraries, 130 * 1024);
+        dest = dir.resolve("dist");
+        installer = new Installer(null, null, null);
+    }
+
+    @Setup(Level.Iteration)
+    public void deleteExtracted() throws IOException {
+        SyntheticDistribution.delete(dest);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteArchive() throws IOException {
+        SyntheticDistribution.delete(dir);
+    }
+
+    @Benchmark
+    public Path unzip() throws IOException {
+        installer.unzip(zip, dest);
+        return dest;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.wrapper.HashAlgorithmVerifier;
+import org.apache.maven.wrapper.Verifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Verification of the SHA-256 sum of files by {@link HashAlgorithmVerifier}, hashing them or finding a record of a
+ * previous verification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VerifyBenchmark {
+    /** Size of the verified file in bytes: a wrapper jar, Maven 3.9 and a large distribution. */
+    @Param({"65536", "9437184", "104857600"})
+    private long size;
+
+    /** Whether the verifications are recorded, and an unchanged file is not hashed again. */
+    @Param({"false", "true"})
+    private boolean recorded;
+
+    private Path dir;
+
+    private Path file;
+
+    private String sum;
+
+    private HashAlgorithmVerifier verifier;
+
+    @Setup(Level.Trial)
+    public void createFile() throws IOException, NoSuchAlgorithmException {
+        dir = Files.createTempDirectory("verify-benchmark");
+        file = dir.resolve("apache-maven-3.9.9-bin.zip");
+        SyntheticDistribution.writeRandom(file, size);
+        // older than the modification time granularity, for the verification to be recorded
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+
+        MessageDigest digest = MessageDigest.getInstance(Verifier.SHA_256_ALGORITHM);
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            byte[] buffer = new byte[64 * 1024];
+            while (in.read(buffer) != -1) {
+                // digesting
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format(Locale.ROOT, "%02x", b));
+        }
+        sum = hex.toString();
+        verifier = new HashAlgorithmVerifier(recorded ? dir.resolve("checksums") : null);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFile() throws IOException {
+        SyntheticDistribution.delete(dir);
+    }
+
+    @Benchmark
+    public void verify() throws Exception {
+        verifier.verify(file, "distributionSha256Sum", Verifier.SHA_256_ALGORITHM, sum);
+    }
+}
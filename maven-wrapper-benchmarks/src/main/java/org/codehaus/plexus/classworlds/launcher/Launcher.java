@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.codehaus.plexus.classworlds.launcher;
+
+/**
+ * Stand-in for the class worlds launcher of the distributions generated by the startup benchmark, printing the first
+ * line Maven prints and exiting, so that the benchmark measures the wrapper and not Maven.
+ */
+public class Launcher {
+    /** The first line of the output of Maven, which the startup benchmark waits for. */
+    public static final String FIRST_LINE = "[INFO] Scanning for projects...";
+
+    public static void main(String[] args) {
+        System.exit(mainWithExitCode(args));
+    }
+
+    public static int mainWithExitCode(String[] args) {
+        System.out.println(FIRST_LINE);
+        System.out.flush();
+        return 0;
+    }
+}
@@ -206,11 +206,6 @@ public class WrapperMojo extends AbstractMojo {
             distributionType = determineDistributionType(wrapperDir);
         }
 
-        if (mvndVersion != null && !mvndVersion.isEmpty() && !TYPE_ONLY_SCRIPT.equals(distributionType)) {
-            throw new MojoExecutionException("maven-wrapper with type=" + distributionType
-                    + " cannot work with mvnd, please set type to '" + TYPE_ONLY_SCRIPT + "'.");
-        }
-
         mavenVersion = getVersion(mavenVersion, Maven.class, "org.apache.maven/maven-core");
         String wrapperVersion = getVersion(null, this.getClass(), "org.apache.maven.plugins/maven-wrapper-plugin");
 
@@ -0,0 +1,189 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Class path over the jars contained in a Maven distribution archive, without extracting them to disk.
+ * <p>
+ * Each jar is exposed as a {@code mvnw-archive:/<entry>!/} URL. As the URL ends with a slash,
+ * {@link java.net.URLClassLoader} resolves classes and resources relative to it, and this handler serves them from
+ * memory. A jar is inflated the first time one of its resources is requested.
+ */
+public class ArchiveClassPath extends URLStreamHandler implements Closeable {
+    static final String PROTOCOL = "mvnw-archive";
+
+    private static final String SEPARATOR = "!/";
+
+    private final ZipFile archive;
+
+    private final Map<String, Map<String, byte[]>> jars = new ConcurrentHashMap<>();
+
+    public ArchiveClassPath(Path archive) throws IOException {
+        this.archive = new ZipFile(archive.toFile());
+    }
+
+    /**
+     * Returns the class path URLs of the archive entries matching a class worlds style pattern, where a single
+     * {@code *} may appear in the file name part.
+     *
+     * @param pattern entry name pattern, e.g. {@code apache-maven-3.9.9/lib/*.jar}
+     * @return the matching URLs, sorted by entry name
+     * @throws MalformedURLException if an entry name cannot be turned into an URL
+     */
+    public List<URL> find(String pattern) throws MalformedURLException {
+        int slash = pattern.lastIndexOf('/');
+        String dir = pattern.substring(0, slash + 1);
+        String name = pattern.substring(slash + 1);
+        int star = name.indexOf('*');
+        String prefix = star < 0 ? name : name.substring(0, star);
+        String suffix = star < 0 ? "" : name.substring(star + 1);
+
+        List<String> names = new ArrayList<>();
+        Enumeration<? extends ZipEntry> entries = archive.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String entryName = entry.getName();
+            if (entry.isDirectory()
+                    || !entryName.startsWith(dir)
+                    || entryName.indexOf('/', dir.length()) >= 0) {
+                continue;
+            }
+            String fileName = entryName.substring(dir.length());
+            if (star < 0
+                    ? fileName.equals(name)
+                    : fileName.length() >= prefix.length() + suffix.length()
+                            && fileName.startsWith(prefix)
+                            && fileName.endsWith(suffix)) {
+                names.add(entryName);
+            }
+        }
+        Collections.sort(names);
+
+        List<URL> urls = new ArrayList<>(names.size());
+        for (String entryName : names) {
+            urls.add(new URL(PROTOCOL, null, -1, "/" + entryName + SEPARATOR, this));
+        }
+        return urls;
+    }
+
+    @Override
+    protected URLConnection openConnection(URL url) throws IOException {
+        String path = url.getPath();
+        int separator = path.indexOf(SEPARATOR);
+        if (!path.startsWith("/") || separator < 0) {
+            throw new MalformedURLException("Invalid " + PROTOCOL + " URL: " + url);
+        }
+        final String jar = path.substring(1, separator);
+        final String resource = path.substring(separator + SEPARATOR.length());
+        return new URLConnection(url) {
+            private byte[] content;
+
+            @Override
+            public void connect() throws IOException {
+                if (content == null) {
+                    content = entries(jar).get(resource);
+                    if (content == null) {
+                        throw new FileNotFoundException(getURL().toString());
+                    }
+                    connected = true;
+                }
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                connect();
+                return new ByteArrayInputStream(content);
+            }
+
+            @Override
+            public long getContentLengthLong() {
+                try {
+                    connect();
+                } catch (IOException e) {
+                    return -1;
+                }
+                return content.length;
+            }
+        };
+    }
+
+    private Map<String, byte[]> entries(String jar) throws IOException {
+        try {
+            return jars.computeIfAbsent(jar, this::inflate);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private Map<String, byte[]> inflate(String jar) {
+        ZipEntry jarEntry = archive.getEntry(jar);
+        if (jarEntry == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, byte[]> entries = new HashMap<>();
+        try (ZipInputStream in = new ZipInputStream(archive.getInputStream(jarEntry))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024 * 8];
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                out.reset();
+                int length;
+                while ((length = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, length);
+                }
+                entries.put(entry.getName(), out.toByteArray());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return entries;
+    }
+
+    @Override
+    public void close() throws IOException {
+        jars.clear();
+        archive.close();
+    }
+}
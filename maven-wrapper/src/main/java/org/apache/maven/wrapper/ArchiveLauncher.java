@@ -0,0 +1,223 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Launches Maven through the class worlds {@code Launcher} of a distribution whose {@code lib/*.jar} files were not
+ * extracted, reading them from the distribution archive with an {@link ArchiveClassPath} instead.
+ * <p>
+ * The class worlds configuration {@code bin/m2.conf} is interpreted here, as the class worlds configurator only
+ * resolves {@code load} patterns against the file system.
+ */
+public class ArchiveLauncher {
+    private final Path mavenHome;
+
+    private final ArchiveClassPath classPath;
+
+    private final ClassLoader launcherClassLoader;
+
+    public ArchiveLauncher(Path mavenHome, ArchiveClassPath classPath, ClassLoader launcherClassLoader) {
+        this.mavenHome = mavenHome.toAbsolutePath();
+        this.classPath = classPath;
+        this.launcherClassLoader = launcherClassLoader;
+    }
+
+    /**
+     * Configures a new class world from {@code bin/m2.conf} and runs Maven in it.
+     *
+     * @param args the Maven command line arguments
+     * @return the Maven exit code
+     * @throws Exception if the class world cannot be configured or Maven cannot be started
+     */
+    public int launch(String[] args) throws Exception {
+        Class<?> worldClass = launcherClassLoader.loadClass("org.codehaus.plexus.classworlds.ClassWorld");
+        Class<?> realmClass = launcherClassLoader.loadClass("org.codehaus.plexus.classworlds.realm.ClassRealm");
+        Class<?> launcherClass = launcherClassLoader.loadClass("org.codehaus.plexus.classworlds.launcher.Launcher");
+        Method newRealm = worldClass.getMethod("newRealm", String.class, ClassLoader.class);
+        Method getClassRealm = worldClass.getMethod("getClassRealm", String.class);
+        Method addURL = realmClass.getMethod("addURL", URL.class);
+        Method importFrom = realmClass.getMethod("importFrom", String.class, String.class);
+        Method setParentRealm = realmClass.getMethod("setParentRealm", realmClass);
+
+        Object world = worldClass.getConstructor().newInstance();
+        Object realm = null;
+        String mainClass = null;
+        String mainRealm = null;
+
+        Path configuration = mavenHome.resolve("bin/m2.conf");
+        try (BufferedReader reader = Files.newBufferedReader(configuration, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("main is ")) {
+                    String[] main = filter(line.substring("main is ".length())).split("\\s+from\\s+");
+                    mainClass = main[0].trim();
+                    mainRealm = main[1].trim();
+                } else if (line.startsWith("set ")) {
+                    set(line.substring("set ".length()).trim());
+                } else if (line.startsWith("[") && line.endsWith("]")) {
+                    String realmName = line.substring(1, line.length() - 1).trim();
+                    realm = newRealm.invoke(world, realmName, launcherClassLoader);
+                    int dot = realmName.lastIndexOf('.');
+                    Object parent = dot > 0 ? getClassRealm.invoke(world, realmName.substring(0, dot)) : null;
+                    if (parent != null) {
+                        setParentRealm.invoke(realm, parent);
+                    }
+                } else if (line.startsWith("import ") && realm != null) {
+                    String[] imports = filter(line.substring("import ".length())).split("\\s+from\\s+");
+                    importFrom.invoke(realm, imports[1].trim(), imports[0].trim());
+                } else if ((line.startsWith("load ") || line.startsWith("optionally ")) && realm != null) {
+                    boolean optional = line.startsWith("optionally ");
+                    String pattern = filter(line.substring(line.indexOf(' ') + 1).trim());
+                    List<URL> urls = resolve(pattern);
+                    if (urls.isEmpty() && !optional && !pattern.contains("*")) {
+                        throw new FileNotFoundException(pattern);
+                    }
+                    for (URL url : urls) {
+                        addURL.invoke(realm, url);
+                    }
+                }
+            }
+        }
+        if (mainClass == null) {
+            throw new IllegalStateException("No main class specified in " + configuration);
+        }
+
+        Object launcher = launcherClass.getConstructor().newInstance();
+        launcherClass.getMethod("setWorld", worldClass).invoke(launcher, world);
+        launcherClass.getMethod("setAppMain", String.class, String.class).invoke(launcher, mainClass, mainRealm);
+        launcherClass.getMethod("launch", String[].class).invoke(launcher, new Object[] {args});
+        return (Integer) launcherClass.getMethod("getExitCode").invoke(launcher);
+    }
+
+    /**
+     * Resolves a {@code load} pattern: entries below {@code ${maven.home}/lib} come from the archive, anything else
+     * and files added to the Maven home after installation come from the file system.
+     */
+    private List<URL> resolve(String pattern) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        String path = pattern.replace(File.separatorChar, '/');
+        String lib = mavenHome.resolve("lib").toString().replace(File.separatorChar, '/') + "/";
+        if (path.startsWith(lib)) {
+            urls.addAll(classPath.find(
+                    mavenHome.getFileName() + "/lib/" + path.substring(lib.length())));
+        }
+
+        Path file = Paths.get(pattern);
+        String name = file.getFileName().toString();
+        int star = name.indexOf('*');
+        if (star < 0) {
+            if (Files.exists(file)) {
+                urls.add(file.toUri().toURL());
+            }
+        } else if (Files.isDirectory(file.getParent())) {
+            List<Path> matches = new ArrayList<>();
+            String prefix = name.substring(0, star);
+            String suffix = name.substring(star + 1);
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(file.getParent())) {
+                for (Path match : ds) {
+                    String fileName = match.getFileName().toString();
+                    if (Files.isRegularFile(match)
+                            && fileName.length() >= prefix.length() + suffix.length()
+                            && fileName.startsWith(prefix)
+                            && fileName.endsWith(suffix)) {
+                        matches.add(match);
+                    }
+                }
+            }
+            Collections.sort(matches);
+            for (Path match : matches) {
+                urls.add(match.toUri().toURL());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Handles {@code set <property> [using <file>] [default <value>]}, leaving already defined properties untouched.
+     */
+    private void set(String directive) throws IOException {
+        String[] tokens = directive.split("\\s+");
+        String property = tokens[0];
+        if (System.getProperty(property) != null) {
+            return;
+        }
+        String value = null;
+        for (int i = 1; i + 1 < tokens.length; i += 2) {
+            if ("using".equals(tokens[i]) && value == null) {
+                Path file = Paths.get(filter(tokens[i + 1]));
+                if (Files.isRegularFile(file)) {
+                    Properties properties = new Properties();
+                    try (InputStream in = Files.newInputStream(file)) {
+                        properties.load(in);
+                    }
+                    value = properties.getProperty(property);
+                }
+            } else if ("default".equals(tokens[i]) && value == null) {
+                value = filter(directive.substring(directive.indexOf(" default ") + " default ".length())
+                        .trim());
+            }
+        }
+        if (value != null) {
+            System.setProperty(property, value);
+        }
+    }
+
+    private static String filter(String text) {
+        StringBuilder result = new StringBuilder();
+        int start = 0;
+        int open;
+        while ((open = text.indexOf("${", start)) >= 0) {
+            int close = text.indexOf('}', open);
+            if (close < 0) {
+                break;
+            }
+            String property = text.substring(open + 2, close);
+            String value = System.getProperty(property);
+            if (value == null) {
+                throw new IllegalStateException(String.format(
+                        Locale.ROOT, "No system property '%s' defined, required by '%s'.", property, text));
+            }
+            result.append(text, start, open).append(value);
+            start = close + 1;
+        }
+        return result.append(text.substring(start)).toString();
+    }
+}
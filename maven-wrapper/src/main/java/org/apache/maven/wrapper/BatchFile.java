@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Batch of Maven invocations to run in the same wrapper JVM, one argument line per invocation.
+ * <p>
+ * Empty lines and lines starting with {@code #} are ignored. Arguments are separated by whitespace and can be
+ * quoted with single or double quotes.
+ */
+public class BatchFile {
+    private final List<String> lines = new ArrayList<>();
+
+    private final List<String[]> invocations = new ArrayList<>();
+
+    /**
+     * Reads the batch from a file, or from the standard input if the name is {@code -}.
+     *
+     * @param name the batch file name
+     * @param commonArgs arguments prepended to every invocation, i.e. the arguments given to the wrapper
+     * @return the batch
+     * @throws IOException if the batch cannot be read
+     */
+    public static BatchFile read(String name, String[] commonArgs) throws IOException {
+        BatchFile batch = new BatchFile();
+        try (BufferedReader reader = "-".equals(name)
+                ? new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()))
+                : Files.newBufferedReader(Paths.get(name), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    batch.add(line, commonArgs);
+                }
+            }
+        }
+        return batch;
+    }
+
+    void add(String line, String[] commonArgs) {
+        List<String> args = new ArrayList<>(Arrays.asList(commonArgs));
+        args.addAll(split(line));
+        lines.add(line);
+        invocations.add(args.toArray(new String[0]));
+    }
+
+    /**
+     * @return the argument lines, as written in the batch
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * @return the arguments of each invocation, including the common arguments
+     */
+    public List<String[]> getInvocations() {
+        return invocations;
+    }
+
+    static List<String> split(String line) {
+        List<String> args = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote in batch line: " + line);
+        }
+        if (inArg) {
+            args.add(current.toString());
+        }
+        return args;
+    }
+}
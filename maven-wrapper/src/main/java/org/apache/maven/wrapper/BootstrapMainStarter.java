@@ -20,14 +20,23 @@ package org.apache.maven.wrapper;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
+import java.util.Properties;
+
+import org.apache.maven.wrapper.InstallListener.Phase;
 
 /**
  * Maven starter, from a provided Maven home directory.
@@ -35,21 +44,193 @@ import java.util.Locale;
  * @author Hans Dockter
  */
 public class BootstrapMainStarter {
+    private static final String LAUNCHER_CLASS = "org.codehaus.plexus.classworlds.launcher.Launcher";
+
+    /**
+     * Exit code of a batch invocation throwing an exception out of Maven, the one the class worlds launcher uses.
+     */
+    static final int BATCH_INVOCATION_FAILED = 100;
+
+    private InstallListener listener;
+
+    /**
+     * Sets the listener notified of the launch, which ends when Maven, or the Maven Daemon client, is started.
+     *
+     * @param listener the listener, or {@code null}
+     */
+    public void setInstallListener(InstallListener listener) {
+        this.listener = listener;
+    }
+
     public void start(String[] args, Path mavenHome) throws Exception {
+        launching(mavenHome);
+        Path mvndClient = findMvndClient(mavenHome);
+        if (mvndClient != null) {
+            launched(mavenHome);
+            System.exit(startMvnd(mvndClient, args));
+        }
+
+        ClassLoader contextClassLoader = prepareLauncher(mavenHome);
+        Class<?> mainClass = contextClassLoader.loadClass(LAUNCHER_CLASS);
+
+        Path archive = findDistributionArchive(mavenHome);
+        if (archive != null) {
+            Logger.info("Launching Maven from " + archive.toAbsolutePath());
+            // the archive stays open for the lifetime of Maven, exit like the class worlds Launcher does
+            ArchiveClassPath classPath = new ArchiveClassPath(archive);
+            launched(mavenHome);
+            System.exit(new ArchiveLauncher(mavenHome, classPath, contextClassLoader).launch(args));
+        }
+
+        Method mainMethod = mainClass.getMethod("main", String[].class);
+        launched(mavenHome);
+        mainMethod.invoke(null, new Object[] {args});
+    }
+
+    /**
+     * Runs the invocations of a batch one after the other in this JVM, each one in a new class world, stopping at the
+     * first one that fails.
+     *
+     * @param batch the Maven invocations
+     * @param mavenHome the Maven home
+     * @return the exit code of the last invocation run
+     * @throws Exception if Maven cannot be started
+     */
+    public int startBatch(BatchFile batch, Path mavenHome) throws Exception {
+        launching(mavenHome);
+        Path mvndClient = findMvndClient(mavenHome);
+        if (mvndClient != null) {
+            launched(mavenHome);
+            return startMvndBatch(batch, mvndClient);
+        }
+
+        ClassLoader contextClassLoader = prepareLauncher(mavenHome);
+        Method mainMethod = contextClassLoader.loadClass(LAUNCHER_CLASS).getMethod("mainWithExitCode", String[].class);
+
+        Path archive = findDistributionArchive(mavenHome);
+        ArchiveClassPath classPath = archive == null ? null : new ArchiveClassPath(archive);
+        launched(mavenHome);
+
+        List<String[]> invocations = batch.getInvocations();
+        int[] exitCodes = new int[invocations.size()];
+        int exitCode = 0;
+        int count = 0;
+        try {
+            while (count < invocations.size() && exitCode == 0) {
+                String[] args = invocations.get(count);
+                // Maven defines system properties from its -D arguments, they must not leak to the next invocation
+                Properties systemProperties = (Properties) System.getProperties().clone();
+                try {
+                    exitCode = classPath != null
+                            ? new ArchiveLauncher(mavenHome, classPath, contextClassLoader).launch(args)
+                            : (Integer) mainMethod.invoke(null, new Object[] {args});
+                } catch (InvocationTargetException e) {
+                    e.getCause().printStackTrace();
+                    exitCode = BATCH_INVOCATION_FAILED;
+                } finally {
+                    System.setProperties(systemProperties);
+                    Thread.currentThread().setContextClassLoader(contextClassLoader);
+                }
+                exitCodes[count++] = exitCode;
+            }
+        } finally {
+            if (classPath != null) {
+                classPath.close();
+            }
+        }
+
+        printBatchSummary(batch, exitCodes, count);
+        return exitCode;
+    }
+
+    private void launching(Path mavenHome) {
+        if (listener != null) {
+            listener.started(Phase.LAUNCH, mavenHome.toString(), System.nanoTime());
+        }
+    }
+
+    private void launched(Path mavenHome) {
+        if (listener != null) {
+            listener.ended(Phase.LAUNCH, mavenHome.toString(), -1, null, System.nanoTime());
+        }
+    }
+
+    private int startMvndBatch(BatchFile batch, Path mvndClient) throws Exception {
+        List<String[]> invocations = batch.getInvocations();
+        int[] exitCodes = new int[invocations.size()];
+        int exitCode = 0;
+        int count = 0;
+        while (count < invocations.size() && exitCode == 0) {
+            exitCode = startMvnd(mvndClient, invocations.get(count));
+            exitCodes[count++] = exitCode;
+        }
+        printBatchSummary(batch, exitCodes, count);
+        return exitCode;
+    }
+
+    private void printBatchSummary(BatchFile batch, int[] exitCodes, int count) {
+        List<String> lines = batch.getLines();
+        Logger.result("Maven Wrapper batch of " + lines.size() + " invocations:");
+        for (int i = 0; i < lines.size(); i++) {
+            Logger.result(String.format("%4s  %s", i < count ? String.valueOf(exitCodes[i]) : "-", lines.get(i)));
+        }
+    }
+
+    /**
+     * Hands off to the Maven Daemon client, which connects to a warm daemon or starts a new one.
+     */
+    private int startMvnd(Path mvndClient, String[] args) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(mvndClient.toAbsolutePath().toString());
+        command.addAll(Arrays.asList(args));
+        ProcessBuilder processBuilder = new ProcessBuilder(command).inheritIO();
+        if (System.getenv("JAVA_HOME") == null) {
+            // let the client and daemon use the JVM the wrapper was started with
+            processBuilder.environment().put("JAVA_HOME", System.getProperty("java.home"));
+        }
+        Logger.info("Launching Maven Daemon client " + mvndClient.toAbsolutePath());
+        return processBuilder.start().waitFor();
+    }
+
+    private Path findMvndClient(Path mavenHome) {
+        if (!Files.exists(mavenHome.resolve("bin/mvnd.sh"))) {
+            return null;
+        }
+        boolean windows = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+        // prefer the native client of platform distributions, when it is the one of this platform
+        String[] clients = windows ? new String[] {"mvnd.exe", "mvnd.cmd"} : new String[] {"mvnd", "mvnd.sh"};
+        if (WrapperExecutor.detectMvndPlatform() == null) {
+            clients = new String[] {clients[1]};
+        }
+        for (String client : clients) {
+            Path path = mavenHome.resolve("bin").resolve(client);
+            if (Files.isRegularFile(path)) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private ClassLoader prepareLauncher(Path mavenHome) throws IOException {
         final Path mavenJar = findLauncherJar(mavenHome);
         URLClassLoader contextClassLoader = new URLClassLoader(
                 new URL[] {mavenJar.toUri().toURL()},
                 ClassLoader.getSystemClassLoader().getParent());
         Thread.currentThread().setContextClassLoader(contextClassLoader);
-        Class<?> mainClass = contextClassLoader.loadClass("org.codehaus.plexus.classworlds.launcher.Launcher");
 
         System.setProperty("maven.home", mavenHome.toAbsolutePath().toString());
         System.setProperty(
                 "classworlds.conf",
                 mavenHome.resolve("bin/m2.conf").toAbsolutePath().toString());
+        return contextClassLoader;
+    }
 
-        Method mainMethod = mainClass.getMethod("main", String[].class);
-        mainMethod.invoke(null, new Object[] {args});
+    private Path findDistributionArchive(Path mavenHome) throws IOException {
+        Path archiveFile = mavenHome.resolve(Installer.ARCHIVE_FILE);
+        if (!Files.isRegularFile(archiveFile)) {
+            return null;
+        }
+        return Paths.get(new String(Files.readAllBytes(archiveFile), StandardCharsets.UTF_8).trim());
     }
 
     private Path findLauncherJar(Path mavenHome) throws IOException {
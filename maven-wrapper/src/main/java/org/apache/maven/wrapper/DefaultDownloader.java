@@ -18,10 +18,14 @@
  */
 package org.apache.maven.wrapper;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.net.Authenticator;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
 import java.net.PasswordAuthentication;
 import java.net.URI;
 import java.net.URL;
@@ -33,6 +37,8 @@ import java.nio.file.StandardCopyOption;
 import java.util.Locale;
 import java.util.concurrent.ThreadLocalRandom;
 
+import org.apache.maven.wrapper.InstallListener.Phase;
+
 import static org.apache.maven.wrapper.MavenWrapperMain.MVNW_PASSWORD;
 import static org.apache.maven.wrapper.MavenWrapperMain.MVNW_USERNAME;
 
@@ -40,10 +46,23 @@ import static org.apache.maven.wrapper.MavenWrapperMain.MVNW_USERNAME;
  * @author Hans Dockter
  */
 public class DefaultDownloader implements Downloader {
+    private static final String[] CENTRAL_URLS = {
+        MavenSettings.CENTRAL_URL,
+        "http://repo.maven.apache.org/maven2/",
+        "https://repo1.maven.org/maven2/",
+        "http://repo1.maven.org/maven2/"
+    };
+
     private final String applicationName;
 
     private final String applicationVersion;
 
+    private Path settingsFile;
+
+    private MavenSettings settings;
+
+    private InstallListener listener;
+
     public DefaultDownloader(String applicationName, String applicationVersion) {
         this.applicationName = applicationName;
         this.applicationVersion = applicationVersion;
@@ -51,6 +70,25 @@ public class DefaultDownloader implements Downloader {
         configureAuthentication();
     }
 
+    /**
+     * Sets the Maven settings file, whose mirror of Maven Central, with the credentials of its server, and whose
+     * proxies are used for downloading. The file is only read when downloading.
+     *
+     * @param settingsFile the Maven settings file
+     */
+    public void setSettingsFile(Path settingsFile) {
+        this.settingsFile = settingsFile;
+    }
+
+    /**
+     * Sets the listener notified of the start, progress and end of each download.
+     *
+     * @param listener the listener, or {@code null}
+     */
+    public void setInstallListener(InstallListener listener) {
+        this.listener = listener;
+    }
+
     private void configureProxyAuthentication() {
         if (System.getProperty("http.proxyUser") != null) {
             Authenticator.setDefault(new SystemPropertiesProxyAuthenticator());
@@ -75,6 +113,9 @@ public class DefaultDownloader implements Downloader {
     @Override
     public void download(URI address, Path destination) throws Exception {
         if (Files.exists(destination)) {
+            if (listener != null) {
+                listener.cached(Phase.DOWNLOAD, address.toString(), System.nanoTime());
+            }
             return;
         }
         Files.createDirectories(destination.getParent());
@@ -83,30 +124,172 @@ public class DefaultDownloader implements Downloader {
             Logger.warn("Using an insecure connection to download the Maven distribution."
                     + " Please consider using HTTPS.");
         }
-        downloadInternal(address, destination);
+        downloadInternal(address, destination, null);
+    }
+
+    @Override
+    public byte[][] download(URI address, Path destination, FileDigester digester) throws Exception {
+        if (Files.exists(destination)) {
+            return digester.digest(destination);
+        }
+        Files.createDirectories(destination.getParent());
+
+        if (!"https".equals(address.getScheme())) {
+            Logger.warn("Using an insecure connection to download the Maven distribution."
+                    + " Please consider using HTTPS.");
+        }
+        digester.reset();
+        downloadInternal(address, destination, digester);
+        return digester.digest();
+    }
+
+    @Override
+    public byte[] downloadRange(URI address, long offset, int length) throws Exception {
+        URLConnection conn = openConnection(address);
+        if (!(conn instanceof HttpURLConnection)) {
+            throw new UnsupportedOperationException("Range downloads need HTTP: " + address);
+        }
+        conn.setRequestProperty(
+                "Range", offset < 0 ? "bytes=-" + length : "bytes=" + offset + "-" + (offset + length - 1));
+        HttpURLConnection httpConn = (HttpURLConnection) conn;
+        started(address);
+        try (InputStream inStream = conn.getInputStream()) {
+            if (httpConn.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                throw new UnsupportedOperationException("Server does not support range requests: " + address);
+            }
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream(length);
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while (outStream.size() < length
+                    && (read = inStream.read(buffer, 0, Math.min(buffer.length, length - outStream.size()))) != -1) {
+                outStream.write(buffer, 0, read);
+            }
+            ended(address, outStream.size(), null);
+            return outStream.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            ended(address, -1, e);
+            throw e;
+        }
     }
 
-    private void downloadInternal(URI address, Path destination) throws IOException {
+    /**
+     * Opens a connection to the address, or to its mirror from the settings, through the proxy from the settings.
+     */
+    private URLConnection openConnection(URI address) throws IOException {
+        MavenSettings.Mirror mirror = null;
+        String centralUrl = getCentralUrl(address);
+        if (centralUrl != null && settingsFile != null) {
+            mirror = getSettings().getMirror(MavenSettings.CENTRAL_ID, MavenSettings.CENTRAL_URL);
+            if (mirror != null) {
+                String mirrorUrl = mirror.getUrl().endsWith("/") ? mirror.getUrl() : mirror.getUrl() + "/";
+                address = URI.create(mirrorUrl + address.toString().substring(centralUrl.length()));
+                Logger.info("Using mirror " + mirror.getId() + " of " + MavenSettings.CENTRAL_ID + ": " + address);
+            }
+        }
+
         URL url = address.toURL();
-        URLConnection conn = url.openConnection();
-        addBasicAuthentication(address, conn);
+        MavenSettings.Proxy proxy = null;
+        if (settingsFile != null && System.getProperty(url.getProtocol() + ".proxyHost") == null) {
+            proxy = getSettings().getProxy(url.getProtocol(), url.getHost());
+        }
+        URLConnection conn;
+        if (proxy != null) {
+            Logger.info("Using proxy " + proxy.getHost() + ":" + proxy.getPort() + " for " + url.getHost());
+            conn = url.openConnection(new java.net.Proxy(
+                    java.net.Proxy.Type.HTTP, new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+        } else {
+            conn = url.openConnection();
+        }
+        addBasicAuthentication(address, conn, mirror);
         final String userAgentValue = calculateUserAgent();
         conn.setRequestProperty("User-Agent", userAgentValue);
+        return conn;
+    }
+
+    private static String getCentralUrl(URI address) {
+        for (String centralUrl : CENTRAL_URLS) {
+            if (address.toString().startsWith(centralUrl)) {
+                return centralUrl;
+            }
+        }
+        return null;
+    }
+
+    private synchronized MavenSettings getSettings() {
+        if (settings == null) {
+            settings = settingsFile != null ? MavenSettings.read(settingsFile) : new MavenSettings();
+            if (System.getProperty("http.proxyUser") == null && settings.hasProxyCredentials()) {
+                Authenticator.setDefault(new SettingsProxyAuthenticator(settings));
+            }
+        }
+        return settings;
+    }
+
+    private void downloadInternal(URI address, Path destination, FileDigester digester) throws IOException {
+        URLConnection conn = openConnection(address);
 
         Path temp = destination
                 .getParent()
                 .resolve(destination.getFileName() + "."
                         + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+        started(address);
         try (InputStream inStream = conn.getInputStream()) {
-            Files.copy(inStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            long bytes;
+            if (digester == null && listener == null) {
+                bytes = Files.copy(inStream, temp, StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                bytes = copy(inStream, temp, digester, address, conn.getContentLengthLong());
+            }
             Files.move(temp, destination, StandardCopyOption.REPLACE_EXISTING);
+            ended(address, bytes, null);
+        } catch (IOException | RuntimeException e) {
+            ended(address, -1, e);
+            throw e;
         } finally {
             Files.deleteIfExists(temp);
         }
     }
 
-    private void addBasicAuthentication(URI address, URLConnection connection) {
+    private long copy(InputStream inStream, Path file, FileDigester digester, URI address, long contentLength)
+            throws IOException {
+        long bytes = 0;
+        try (OutputStream outStream = Files.newOutputStream(file)) {
+            byte[] buffer = new byte[64 * 1024];
+            int length;
+            while ((length = inStream.read(buffer)) != -1) {
+                outStream.write(buffer, 0, length);
+                if (digester != null) {
+                    digester.update(buffer, 0, length);
+                }
+                bytes += length;
+                if (listener != null) {
+                    listener.progress(Phase.DOWNLOAD, address.toString(), bytes, contentLength, System.nanoTime());
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void started(URI address) {
+        if (listener != null) {
+            listener.started(Phase.DOWNLOAD, address.toString(), System.nanoTime());
+        }
+    }
+
+    private void ended(URI address, long bytes, Throwable failure) {
+        if (listener != null) {
+            listener.ended(Phase.DOWNLOAD, address.toString(), bytes, failure, System.nanoTime());
+        }
+    }
+
+    private void addBasicAuthentication(URI address, URLConnection connection, MavenSettings.Mirror mirror) {
         String userInfo = calculateUserInfo(address);
+        if (userInfo == null && mirror != null) {
+            MavenSettings.Server server = getSettings().getServer(mirror.getId());
+            if (server != null && server.getUsername() != null && server.getPassword() != null) {
+                userInfo = server.getUsername() + ':' + server.getPassword();
+            }
+        }
         if (userInfo == null) {
             return;
         }
@@ -176,6 +359,33 @@ public class DefaultDownloader implements Downloader {
                 javaVendorVersion);
     }
 
+    /**
+     * Authenticates to the proxies of the Maven settings, and to servers with the {@code MVNW_USERNAME} and
+     * {@code MVNW_PASSWORD} environment variables.
+     */
+    private static class SettingsProxyAuthenticator extends Authenticator {
+        private final MavenSettings settings;
+
+        SettingsProxyAuthenticator(MavenSettings settings) {
+            this.settings = settings;
+        }
+
+        @Override
+        protected PasswordAuthentication getPasswordAuthentication() {
+            if (getRequestorType() == RequestorType.PROXY) {
+                MavenSettings.Proxy proxy = settings.getProxy(getRequestingHost(), getRequestingPort());
+                if (proxy != null && proxy.getUsername() != null && proxy.getPassword() != null) {
+                    return new PasswordAuthentication(
+                            proxy.getUsername(), proxy.getPassword().toCharArray());
+                }
+            } else if (System.getenv(MVNW_USERNAME) != null && System.getenv(MVNW_PASSWORD) != null) {
+                return new PasswordAuthentication(
+                        System.getenv(MVNW_USERNAME), System.getenv(MVNW_PASSWORD).toCharArray());
+            }
+            return null;
+        }
+    }
+
     private static class SystemPropertiesProxyAuthenticator extends Authenticator {
         @Override
         protected PasswordAuthentication getPasswordAuthentication() {
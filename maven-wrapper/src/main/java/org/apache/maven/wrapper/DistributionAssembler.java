@@ -0,0 +1,485 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Installs a Maven distribution from the entries of its remote ZIP archive, without downloading the whole archive.
+ * Only the central directory of the archive is downloaded first. Entries with the same name, size and CRC-32 as a file
+ * of another installed distribution, or as an artifact of the local Maven repository, are copied from there. The other
+ * entries are fetched with concurrent HTTP range requests.
+ */
+public class DistributionAssembler {
+    /**
+     * File in the distribution directory marking a distribution that was assembled, and has no archive.
+     */
+    public static final String ASSEMBLED_FILE = "mvnw.assembled";
+
+    private static final int END_SIGNATURE = 0x06054b50;
+
+    private static final int CENTRAL_SIGNATURE = 0x02014b50;
+
+    private static final int LOCAL_SIGNATURE = 0x04034b50;
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 8;
+
+    private static final int END_SIZE = 22;
+
+    private static final int LOCAL_HEADER_SIZE = 30;
+
+    private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    /**
+     * Adjacent missing entries are fetched together, up to this size.
+     */
+    private static final int MAX_RANGE_SIZE = 1024 * 1024;
+
+    private static final int DOWNLOAD_THREADS = 4;
+
+    private final Downloader download;
+
+    private final Path distributionsDir;
+
+    private final Path localRepository;
+
+    /**
+     * @param download the downloader, supporting range downloads
+     * @param distributionsDir the directory holding the installed distributions, or {@code null}
+     * @param localRepository the local Maven repository, or {@code null}
+     */
+    public DistributionAssembler(Downloader download, Path distributionsDir, Path localRepository) {
+        this.download = download;
+        this.distributionsDir = distributionsDir;
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * Installs the distribution into an empty directory.
+     *
+     * @param distributionUrl the address of the distribution archive
+     * @param distDir the directory to install the distribution into
+     * @throws Exception if the distribution cannot be assembled
+     */
+    public void assemble(URI distributionUrl, Path distDir) throws Exception {
+        Path destDir = distDir.normalize();
+        Files.deleteIfExists(destDir.resolve(ASSEMBLED_FILE));
+        List<Entry> entries = readCentralDirectory(distributionUrl);
+        for (Entry entry : entries) {
+            if (!destDir.resolve(entry.name).normalize().startsWith(destDir)) {
+                throw new ZipException("Zip includes an invalid entry: " + entry.name);
+            }
+        }
+        findLocalFiles(entries, destDir);
+
+        Path workDir = destDir.resolveSibling(destDir.getFileName() + ".part");
+        deleteDir(workDir);
+        Files.createDirectories(workDir);
+        try {
+            int copied = 0;
+            for (Entry entry : entries) {
+                Path file = workDir.resolve(entry.name);
+                if (entry.isDirectory()) {
+                    Files.createDirectories(file);
+                } else if (entry.source != null) {
+                    Files.createDirectories(file.getParent());
+                    Files.copy(entry.source, file);
+                    copied++;
+                }
+            }
+            List<List<Entry>> ranges = missingRanges(entries);
+            long downloaded = fetch(distributionUrl, ranges, workDir);
+
+            Files.createDirectories(destDir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(workDir)) {
+                for (Path file : files) {
+                    Files.move(file, destDir.resolve(file.getFileName().toString()));
+                }
+            }
+            Files.write(destDir.resolve(ASSEMBLED_FILE), (distributionUrl + "\n").getBytes(StandardCharsets.UTF_8));
+            Logger.info(String.format(
+                    Locale.ROOT,
+                    "Assembled %s from %d local files and %d downloaded bytes in %d range requests",
+                    distributionUrl,
+                    copied,
+                    downloaded,
+                    ranges.size()));
+        } finally {
+            deleteDir(workDir);
+        }
+    }
+
+    private List<Entry> readCentralDirectory(URI distributionUrl) throws Exception {
+        byte[] tail = download.downloadRange(distributionUrl, -1, END_SIZE + MAX_COMMENT_SIZE);
+        ByteBuffer buffer = ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN);
+        int end = tail.length - END_SIZE;
+        while (end >= 0
+                && (buffer.getInt(end) != END_SIGNATURE
+                        || end + END_SIZE + (buffer.getShort(end + 20) & 0xFFFF) != tail.length)) {
+            end--;
+        }
+        if (end < 0) {
+            throw new ZipException("End of central directory not found in " + distributionUrl);
+        }
+        int count = buffer.getShort(end + 10) & 0xFFFF;
+        long size = buffer.getInt(end + 12) & 0xFFFFFFFFL;
+        long offset = buffer.getInt(end + 16) & 0xFFFFFFFFL;
+        if (count == 0xFFFF || size == 0xFFFFFFFFL || offset == 0xFFFFFFFFL) {
+            throw new ZipException("ZIP64 archives are not supported: " + distributionUrl);
+        }
+
+        // the end record directly follows the central directory
+        long tailOffset = offset + size - end;
+        ByteBuffer directory;
+        if (tailOffset <= offset) {
+            directory = ByteBuffer.wrap(tail, (int) (offset - tailOffset), (int) size)
+                    .slice()
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            directory = ByteBuffer.wrap(download.downloadRange(distributionUrl, offset, (int) size))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        List<Entry> entries = new ArrayList<>(count);
+        int position = 0;
+        for (int i = 0; i < count; i++) {
+            if (directory.limit() < position + 46 || directory.getInt(position) != CENTRAL_SIGNATURE) {
+                throw new ZipException("Invalid central directory in " + distributionUrl);
+            }
+            Entry entry = new Entry();
+            entry.method = directory.getShort(position + 10) & 0xFFFF;
+            entry.crc = directory.getInt(position + 16) & 0xFFFFFFFFL;
+            entry.compressedSize = directory.getInt(position + 20) & 0xFFFFFFFFL;
+            entry.size = directory.getInt(position + 24) & 0xFFFFFFFFL;
+            int nameLength = directory.getShort(position + 28) & 0xFFFF;
+            int extraLength = directory.getShort(position + 30) & 0xFFFF;
+            int commentLength = directory.getShort(position + 32) & 0xFFFF;
+            entry.offset = directory.getInt(position + 42) & 0xFFFFFFFFL;
+            byte[] name = new byte[nameLength];
+            ((ByteBuffer) directory.duplicate().position(position + 46)).get(name);
+            entry.name = new String(name, StandardCharsets.UTF_8);
+            if (!entry.isDirectory() && entry.method != STORED && entry.method != DEFLATED) {
+                throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name);
+            }
+            entries.add(entry);
+            position += 46 + nameLength + extraLength + commentLength;
+        }
+
+        entries.sort(Comparator.comparingLong(entry -> entry.offset));
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).end = i + 1 < entries.size() ? entries.get(i + 1).offset : offset;
+        }
+        return entries;
+    }
+
+    /**
+     * Looks for files identical to the entries in the other installed distributions, then for the remaining
+     * {@code lib/*.jar} entries in the local Maven repository.
+     */
+    private void findLocalFiles(List<Entry> entries, Path destDir) throws IOException {
+        Map<String, List<Path>> candidates = new HashMap<>();
+        if (distributionsDir != null && Files.isDirectory(distributionsDir)) {
+            Path workDir = destDir.resolveSibling(destDir.getFileName() + ".part");
+            Files.walkFileTree(distributionsDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    return dir.equals(destDir) || dir.equals(workDir)
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (attrs.isRegularFile()) {
+                        candidates
+                                .computeIfAbsent(file.getFileName().toString(), name -> new ArrayList<>())
+                                .add(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+        matchCandidates(entries, candidates);
+
+        if (localRepository != null && Files.isDirectory(localRepository)) {
+            // lib/<artifactId>-<version>.jar is <groupId path>/<artifactId>/<version>/<artifactId>-<version>.jar
+            Map<String, List<String[]>> artifacts = new HashMap<>();
+            for (Entry entry : entries) {
+                String fileName = entry.getFileName();
+                if (entry.source == null && entry.isLibrary()) {
+                    for (int i = fileName.indexOf('-'); i > 0; i = fileName.indexOf('-', i + 1)) {
+                        if (i + 1 < fileName.length() && Character.isDigit(fileName.charAt(i + 1))) {
+                            String version = fileName.substring(i + 1, fileName.length() - ".jar".length());
+                            artifacts
+                                    .computeIfAbsent(fileName.substring(0, i), id -> new ArrayList<>())
+                                    .add(new String[] {version, fileName});
+                        }
+                    }
+                }
+            }
+            if (artifacts.isEmpty()) {
+                return;
+            }
+            candidates.clear();
+            Files.walkFileTree(localRepository, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    if (dir.equals(localRepository)) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                    String name = dir.getFileName().toString();
+                    for (String[] artifact : artifacts.getOrDefault(name, new ArrayList<>())) {
+                        Path file = dir.resolve(artifact[0]).resolve(artifact[1]);
+                        if (Files.isRegularFile(file)) {
+                            candidates
+                                    .computeIfAbsent(artifact[1], fileName -> new ArrayList<>())
+                                    .add(file);
+                        }
+                    }
+                    // version directories only hold the files of their artifact
+                    return name.startsWith(".") || Character.isDigit(name.charAt(0))
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            matchCandidates(entries, candidates);
+        }
+    }
+
+    private static void matchCandidates(List<Entry> entries, Map<String, List<Path>> candidates) throws IOException {
+        for (Entry entry : entries) {
+            if (entry.source != null || entry.isDirectory()) {
+                continue;
+            }
+            for (Path candidate : candidates.getOrDefault(entry.getFileName(), new ArrayList<>())) {
+                if (Files.size(candidate) == entry.size && crc(candidate) == entry.crc) {
+                    entry.source = candidate;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static long crc(Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inStream = Files.newInputStream(file)) {
+            int length;
+            while ((length = inStream.read(buffer)) != -1) {
+                crc.update(buffer, 0, length);
+            }
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Groups the entries to download into ranges of adjacent entries.
+     */
+    private static List<List<Entry>> missingRanges(List<Entry> entries) {
+        List<List<Entry>> ranges = new ArrayList<>();
+        List<Entry> range = null;
+        for (Entry entry : entries) {
+            if (entry.isDirectory() || entry.source != null) {
+                range = null;
+            } else if (range != null && entry.end - range.get(0).offset <= MAX_RANGE_SIZE) {
+                range.add(entry);
+            } else {
+                range = new ArrayList<>();
+                range.add(entry);
+                ranges.add(range);
+            }
+        }
+        return ranges;
+    }
+
+    private long fetch(URI distributionUrl, List<List<Entry>> ranges, Path workDir) throws Exception {
+        if (ranges.isEmpty()) {
+            return 0;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(DOWNLOAD_THREADS, ranges.size()), task -> {
+            Thread thread = new Thread(task, "mvnw-assembler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (List<Entry> range : ranges) {
+                results.add(executor.submit(() -> fetchRange(distributionUrl, range, workDir)));
+            }
+            long downloaded = 0;
+            for (Future<Integer> result : results) {
+                try {
+                    downloaded += result.get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            return downloaded;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int fetchRange(URI distributionUrl, List<Entry> range, Path workDir) throws Exception {
+        long start = range.get(0).offset;
+        int length = (int) (range.get(range.size() - 1).end - start);
+        ByteBuffer bytes = ByteBuffer.wrap(download.downloadRange(distributionUrl, start, length))
+                .order(ByteOrder.LITTLE_ENDIAN);
+        for (Entry entry : range) {
+            int header = (int) (entry.offset - start);
+            if (bytes.limit() < header + LOCAL_HEADER_SIZE || bytes.getInt(header) != LOCAL_SIGNATURE) {
+                throw new ZipException("Invalid local header for " + entry.name + " in " + distributionUrl);
+            }
+            int data = header
+                    + LOCAL_HEADER_SIZE
+                    + (bytes.getShort(header + 26) & 0xFFFF)
+                    + (bytes.getShort(header + 28) & 0xFFFF);
+            if (bytes.limit() < data + entry.compressedSize) {
+                throw new ZipException("Truncated data for " + entry.name + " in " + distributionUrl);
+            }
+            Path file = workDir.resolve(entry.name);
+            Files.createDirectories(file.getParent());
+            extract(bytes.array(), data, entry, file);
+        }
+        return bytes.limit();
+    }
+
+    private static void extract(byte[] bytes, int offset, Entry entry, Path file) throws IOException {
+        CRC32 crc = new CRC32();
+        long size = 0;
+        try (OutputStream outStream = Files.newOutputStream(file)) {
+            if (entry.method == STORED) {
+                outStream.write(bytes, offset, (int) entry.compressedSize);
+                crc.update(bytes, offset, (int) entry.compressedSize);
+                size = entry.compressedSize;
+            } else {
+                Inflater inflater = new Inflater(true);
+                try {
+                    inflater.setInput(bytes, offset, (int) entry.compressedSize);
+                    byte[] buffer = new byte[64 * 1024];
+                    while (!inflater.finished()) {
+                        int length = inflater.inflate(buffer);
+                        if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                            break;
+                        }
+                        outStream.write(buffer, 0, length);
+                        crc.update(buffer, 0, length);
+                        size += length;
+                    }
+                } catch (DataFormatException e) {
+                    throw new ZipException("Invalid compressed data for " + entry.name + ": " + e.getMessage());
+                } finally {
+                    inflater.end();
+                }
+            }
+        }
+        if (size != entry.size || crc.getValue() != entry.crc) {
+            throw new ZipException("CRC-32 or size mismatch for " + entry.name);
+        }
+    }
+
+    private static void deleteDir(Path dirPath) throws IOException {
+        if (Files.notExists(dirPath)) {
+            return;
+        }
+        Files.walkFileTree(dirPath, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                if (exc != null) {
+                    throw exc;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * Entry of the central directory, with the local file to copy when one was found.
+     */
+    private static final class Entry {
+        private String name;
+
+        private int method;
+
+        private long crc;
+
+        private long compressedSize;
+
+        private long size;
+
+        private long offset;
+
+        private long end;
+
+        private Path source;
+
+        boolean isDirectory() {
+            return name.endsWith("/");
+        }
+
+        boolean isLibrary() {
+            int root = name.indexOf('/');
+            return name.startsWith("lib/", root + 1) && name.endsWith(".jar");
+        }
+
+        String getFileName() {
+            return name.substring(name.lastIndexOf('/', name.length() - 2) + 1);
+        }
+    }
+}
@@ -47,4 +47,33 @@ import java.nio.file.Path;
  */
 public interface Downloader {
     void download(URI address, Path destination) throws Exception;
+
+    /**
+     * Downloads a file and computes its digests. Implementations should digest the content while transferring it,
+     * this default implementation reads the downloaded file again.
+     *
+     * @param address the address of the file
+     * @param destination the destination file
+     * @param digester the digester of the content
+     * @return the digests of the content, in the order of the digester algorithms
+     * @throws Exception if the file cannot be downloaded
+     */
+    default byte[][] download(URI address, Path destination, FileDigester digester) throws Exception {
+        download(address, destination);
+        return digester.digest(destination);
+    }
+
+    /**
+     * Downloads a range of bytes of a file.
+     *
+     * @param address the address of the file
+     * @param offset the offset of the first byte, or a negative value to download the last {@code length} bytes
+     * @param length the number of bytes
+     * @return the bytes, fewer than {@code length} if the file ends before
+     * @throws UnsupportedOperationException if the downloader or the server does not support ranges
+     * @throws Exception if the range cannot be downloaded
+     */
+    default byte[] downloadRange(URI address, long offset, int length) throws Exception {
+        throw new UnsupportedOperationException("Range downloads are not supported by " + getClass().getName());
+    }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Downloads the core extensions listed in {@code .mvn/extensions.xml} into the local repository while the distribution
+ * is installed, so Maven finds them there when it starts. Only the extensions themselves are prefetched, not their
+ * dependencies. Each file is validated against its published SHA-1 checksum, and recorded like Maven Resolver does.
+ */
+public class ExtensionsPrefetcher {
+    public static final String EXTENSIONS_FILE = ".mvn/extensions.xml";
+
+    private static final String REMOTE_REPOSITORIES_FILE = "_remote.repositories";
+
+    private static final int DOWNLOAD_THREADS = 4;
+
+    private final Downloader download;
+
+    private final Path extensionsFile;
+
+    private final Path settingsFile;
+
+    private final Path mavenUserHome;
+
+    private Path localRepository;
+
+    private String repositoryUrl;
+
+    private String repositoryId;
+
+    private volatile ExecutorService executor;
+
+    /**
+     * @param download the downloader
+     * @param extensionsFile the {@code .mvn/extensions.xml} file
+     * @param settingsFile the Maven settings, giving the local repository and the mirror of Maven Central
+     * @param mavenUserHome the Maven user home
+     */
+    public ExtensionsPrefetcher(Downloader download, Path extensionsFile, Path settingsFile, Path mavenUserHome) {
+        this.download = download;
+        this.extensionsFile = extensionsFile;
+        this.settingsFile = settingsFile;
+        this.mavenUserHome = mavenUserHome;
+    }
+
+    /**
+     * Starts downloading the missing extensions in the background. Extensions are downloaded from Maven Central, or
+     * from {@code MVNW_REPOURL}, and recorded as coming from Maven Central or from its mirror.
+     */
+    public synchronized void start() {
+        if (executor != null || !Files.isRegularFile(extensionsFile)) {
+            return;
+        }
+        List<String[]> extensions = readExtensions(extensionsFile);
+        if (extensions.isEmpty()) {
+            return;
+        }
+        MavenSettings settings = MavenSettings.read(settingsFile);
+        localRepository = settings.getLocalRepository(mavenUserHome);
+        MavenSettings.Mirror mirror = settings.getMirror(MavenSettings.CENTRAL_ID, MavenSettings.CENTRAL_URL);
+        repositoryId = mirror != null ? mirror.getId() : MavenSettings.CENTRAL_ID;
+        String mvnwRepoUrl = System.getenv(MavenWrapperMain.MVNW_REPOURL);
+        repositoryUrl = mvnwRepoUrl != null && !mvnwRepoUrl.isEmpty() ? mvnwRepoUrl : MavenSettings.CENTRAL_URL;
+        if (!repositoryUrl.endsWith("/")) {
+            repositoryUrl += "/";
+        }
+        executor = Executors.newFixedThreadPool(DOWNLOAD_THREADS, task -> {
+            Thread thread = new Thread(task, "mvnw-extensions");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String[] extension : extensions) {
+            executor.execute(() -> prefetch(extension[0], extension[1], extension[2]));
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * Waits for the started downloads to finish.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void await(long timeoutMillis) throws InterruptedException {
+        ExecutorService executor = this.executor;
+        if (executor != null && !executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            Logger.info("Extensions still downloading, leaving them to Maven");
+        }
+    }
+
+    /**
+     * Stops the started downloads, those not started yet being dropped and the others interrupted.
+     */
+    public void cancel() {
+        ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads the coordinates of the extensions, skipping those with expressions Maven interpolates.
+     *
+     * @param extensionsFile the {@code .mvn/extensions.xml} file
+     * @return the group id, artifact id and version of each extension
+     */
+    static List<String[]> readExtensions(Path extensionsFile) {
+        List<String[]> extensions = new ArrayList<>();
+        try (InputStream inStream = Files.newInputStream(extensionsFile)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            Element root = factory.newDocumentBuilder().parse(inStream).getDocumentElement();
+            for (Node node = root.getFirstChild(); node != null; node = node.getNextSibling()) {
+                if (node instanceof Element && "extension".equals(node.getNodeName())) {
+                    Element element = (Element) node;
+                    String[] extension = {
+                        text(element, "groupId"), text(element, "artifactId"), text(element, "version")
+                    };
+                    if (isLiteral(extension[0]) && isLiteral(extension[1]) && isLiteral(extension[2])) {
+                        extensions.add(extension);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            Logger.warn("Could not read " + extensionsFile + ": " + e.getMessage());
+        }
+        return extensions;
+    }
+
+    private static String text(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && name.equals(node.getNodeName())) {
+                return node.getTextContent().trim();
+            }
+        }
+        return null;
+    }
+
+    private static boolean isLiteral(String value) {
+        return value != null && !value.isEmpty() && !value.contains("${") && !value.contains("/");
+    }
+
+    private void prefetch(String groupId, String artifactId, String version) {
+        Path dir = localRepository.resolve(groupId.replace('.', '/')).resolve(artifactId).resolve(version);
+        for (String extension : new String[] {"pom", "jar"}) {
+            String fileName = artifactId + "-" + version + "." + extension;
+            Path file = dir.resolve(fileName);
+            if (Files.exists(file)) {
+                continue;
+            }
+            URI address = URI.create(repositoryUrl + localRepository.relativize(file).toString().replace('\\', '/'));
+            String suffix = "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp";
+            Path tmpFile = dir.resolve(fileName + suffix);
+            Path tmpChecksumFile = dir.resolve(fileName + ".sha1" + suffix);
+            try {
+                download.download(address, tmpFile);
+                download.download(URI.create(address + ".sha1"), tmpChecksumFile);
+                String expected = new String(Files.readAllBytes(tmpChecksumFile), StandardCharsets.UTF_8)
+                        .trim()
+                        .split("\\s+")[0];
+                String actual = FileDigester.toHex(new FileDigester("SHA-1").digest(tmpFile)[0]);
+                if (!actual.equalsIgnoreCase(expected)) {
+                    Logger.warn("SHA-1 mismatch for " + address + ", leaving it to Maven");
+                    return;
+                }
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmpChecksumFile, dir.resolve(fileName + ".sha1"), StandardCopyOption.REPLACE_EXISTING);
+                record(dir, fileName);
+                Logger.info("Prefetched extension " + address);
+            } catch (Exception e) {
+                Logger.info("Could not prefetch " + address + ": " + e);
+                return;
+            } finally {
+                deleteQuietly(tmpFile);
+                deleteQuietly(tmpChecksumFile);
+            }
+        }
+    }
+
+    /**
+     * Records the repository a file comes from, for Maven Resolver to consider it available from that repository.
+     */
+    private void record(Path dir, String fileName) throws Exception {
+        Path recordFile = dir.resolve(REMOTE_REPOSITORIES_FILE);
+        synchronized (ExtensionsPrefetcher.class) {
+            Properties record = new Properties();
+            if (Files.exists(recordFile)) {
+                try (InputStream inStream = Files.newInputStream(recordFile)) {
+                    record.load(inStream);
+                }
+            }
+            record.setProperty(fileName + ">" + repositoryId, "");
+            Path tmpFile = dir.resolve(REMOTE_REPOSITORIES_FILE + "."
+                    + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try (OutputStream outStream = Files.newOutputStream(tmpFile)) {
+                record.store(
+                        outStream,
+                        "NOTE: This is a Maven Resolver internal implementation file,"
+                                + " its format can be changed without prior notice.");
+            }
+            Files.move(tmpFile, recordFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (Exception e) {
+            // left for the next run
+        }
+    }
+}
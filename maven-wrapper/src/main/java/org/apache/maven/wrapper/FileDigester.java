@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes digests of files or streams with several algorithms in a single pass.
+ * <p>
+ * Files are read through a {@link FileChannel} into a reused heap buffer, whose backing array is handed to
+ * {@link MessageDigest} without copying. Direct and memory-mapped buffers are at most marginally faster, as digests
+ * consume them through an intermediate array, and a mapped file stays locked on Windows until garbage collection. An
+ * instance reuses its buffer and digests, it is not thread safe.
+ */
+public class FileDigester {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final String[] algorithms;
+
+    private final MessageDigest[] digests;
+
+    private ByteBuffer buffer;
+
+    public FileDigester(String... algorithms) throws NoSuchAlgorithmException {
+        this.algorithms = algorithms.clone();
+        this.digests = new MessageDigest[algorithms.length];
+        for (int i = 0; i < algorithms.length; i++) {
+            digests[i] = MessageDigest.getInstance(algorithms[i]);
+        }
+    }
+
+    /**
+     * @return the algorithms, in the order of the digests
+     */
+    public String[] getAlgorithms() {
+        return algorithms.clone();
+    }
+
+    /**
+     * Computes the digests of a file.
+     *
+     * @param file the file
+     * @return the digests, in the order of the algorithms
+     * @throws IOException if the file cannot be read
+     */
+    public byte[][] digest(Path file) throws IOException {
+        if (buffer == null) {
+            buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        }
+        reset();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) != -1) {
+                update(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return digest();
+    }
+
+    /**
+     * Adds bytes to the digests, for content that is not in a file yet, e.g. while downloading.
+     *
+     * @param bytes the bytes
+     * @param offset the offset of the first byte
+     * @param length the number of bytes
+     */
+    public void update(byte[] bytes, int offset, int length) {
+        for (MessageDigest digest : digests) {
+            digest.update(bytes, offset, length);
+        }
+    }
+
+    /**
+     * Completes the digests of the bytes added since the last digest.
+     *
+     * @return the digests, in the order of the algorithms
+     */
+    public byte[][] digest() {
+        byte[][] hashes = new byte[digests.length][];
+        for (int i = 0; i < digests.length; i++) {
+            hashes[i] = digests[i].digest();
+        }
+        return hashes;
+    }
+
+    public void reset() {
+        for (MessageDigest digest : digests) {
+            digest.reset();
+        }
+    }
+
+    /**
+     * @param hash a digest
+     * @return the digest in lower case hex notation
+     */
+    public static String toHex(byte[] hash) {
+        char[] hex = new char[hash.length * 2];
+        for (int i = 0; i < hash.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    /**
+     * @param hex a digest in hex notation
+     * @return the digest, or {@code null} if the notation is invalid
+     */
+    public static byte[] fromHex(String hex) {
+        if (hex.length() % 2 != 0) {
+            return null;
+        }
+        byte[] hash = new byte[hex.length() / 2];
+        for (int i = 0; i < hash.length; i++) {
+            int high = Character.digit(hex.charAt(i * 2), 16);
+            int low = Character.digit(hex.charAt(i * 2 + 1), 16);
+            if (high < 0 || low < 0) {
+                return null;
+            }
+            hash[i] = (byte) (high << 4 | low);
+        }
+        return hash;
+    }
+}
@@ -18,35 +18,86 @@
  */
 package org.apache.maven.wrapper;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.MessageDigest;
 import java.util.Locale;
+import java.util.Objects;
+import java.util.Properties;
 
 /**
+ * Verifies files against an expected hash. When a cache directory is given, successful verifications are recorded
+ * there with the identity of the file (path, size, modification time and file key), and an unchanged file is not hashed
+ * again for the same algorithm and sum.
+ *
  * @author Rafael Winterhalter
  */
 public class HashAlgorithmVerifier implements Verifier {
+    public static final String STRICT_VERIFY_ENV = "MAVEN_WRAPPER_STRICT_VERIFY";
+
+    /**
+     * Files modified less than this before being hashed are not recorded, as a later change within the same
+     * modification time granularity would go unnoticed.
+     */
+    static final long MODIFICATION_TIME_GRANULARITY = 2000;
+
+    private final Path cacheDir;
+
+    private boolean strict = Boolean.parseBoolean(System.getenv(STRICT_VERIFY_ENV));
+
+    public HashAlgorithmVerifier() {
+        this(null);
+    }
+
+    /**
+     * @param cacheDir the directory storing the verification records, or {@code null} to always hash
+     */
+    public HashAlgorithmVerifier(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public boolean isStrict() {
+        return strict;
+    }
+
+    /**
+     * @param strict {@code true} to ignore the recorded verifications and always hash the files
+     */
+    public void setStrict(boolean strict) {
+        this.strict = strict;
+    }
 
     @Override
     public void verify(Path file, String property, String algorithm, String expectedSum) throws Exception {
-        MessageDigest digest = MessageDigest.getInstance(algorithm);
-        try (InputStream inputStream = Files.newInputStream(file)) {
-            byte[] buffer = new byte[1024 * 8];
-            int length;
-            while ((length = inputStream.read(buffer)) != -1) {
-                digest.update(buffer, 0, length);
-            }
-        }
-        byte[] hash = digest.digest();
-        StringBuilder actualSum = new StringBuilder(hash.length * 2);
-        for (byte aByte : hash) {
-            actualSum.append(String.format("%02x", aByte));
+        Path recordFile = recordFile(file);
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Properties record = readRecord(recordFile, file, attributes);
+        if (!strict && expectedSum.equalsIgnoreCase(record.getProperty(algorithm, ""))) {
+            Logger.info(String.format(
+                    Locale.ROOT,
+                    "Validated %s hash for %s to be equal (%s), file unchanged since last validation",
+                    algorithm,
+                    file,
+                    expectedSum));
+            return;
         }
-        if (expectedSum.contentEquals(actualSum)) {
+
+        long hashed = System.currentTimeMillis();
+        byte[] actualHash = new FileDigester(algorithm).digest(file)[0];
+        byte[] expectedHash = FileDigester.fromHex(expectedSum);
+        if (expectedHash != null && MessageDigest.isEqual(expectedHash, actualHash)) {
             Logger.info(String.format(
                     Locale.ROOT, "Validated %s hash for %s to be equal (%s)", algorithm, file, expectedSum));
+            if (!isRecent(attributes, hashed)) {
+                record.setProperty(algorithm, FileDigester.toHex(actualHash));
+                writeRecord(recordFile, record);
+            }
         } else {
             throw new RuntimeException(String.format(
                     Locale.ROOT,
@@ -57,4 +108,86 @@ public class HashAlgorithmVerifier implements Verifier {
                     property));
         }
     }
+
+    /**
+     * Like a verification, a file modified within the modification time granularity is not recorded.
+     */
+    @Override
+    public void record(Path file, String algorithm, String sum) throws Exception {
+        Path recordFile = recordFile(file);
+        if (recordFile != null) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            if (isRecent(attributes, System.currentTimeMillis())) {
+                return;
+            }
+            Properties record = readRecord(recordFile, file, attributes);
+            record.setProperty(algorithm, sum);
+            writeRecord(recordFile, record);
+        }
+    }
+
+    private static boolean isRecent(BasicFileAttributes attributes, long hashed) {
+        return attributes.lastModifiedTime().toMillis() >= hashed - MODIFICATION_TIME_GRANULARITY;
+    }
+
+    private Path recordFile(Path file) throws Exception {
+        if (cacheDir == null) {
+            return null;
+        }
+        String path = file.toAbsolutePath().normalize().toString();
+        MessageDigest digest = MessageDigest.getInstance(SHA_256_ALGORITHM);
+        String name = FileDigester.toHex(digest.digest(path.getBytes(StandardCharsets.UTF_8)));
+        return cacheDir.resolve(name + ".properties");
+    }
+
+    /**
+     * Reads the verification record of a file, only keeping the recorded sums if the file has not changed since.
+     */
+    private static Properties readRecord(Path recordFile, Path file, BasicFileAttributes attributes) {
+        Properties identity = new Properties();
+        identity.setProperty("path", file.toAbsolutePath().normalize().toString());
+        identity.setProperty("size", Long.toString(attributes.size()));
+        identity.setProperty(
+                "lastModified", Long.toString(attributes.lastModifiedTime().toMillis()));
+        if (attributes.fileKey() != null) {
+            identity.setProperty("fileKey", attributes.fileKey().toString());
+        }
+        if (recordFile == null || !Files.isRegularFile(recordFile)) {
+            return identity;
+        }
+
+        Properties record = new Properties();
+        try (InputStream inputStream = Files.newInputStream(recordFile)) {
+            record.load(inputStream);
+        } catch (IOException e) {
+            Logger.warn("Could not read verification record " + recordFile + ": " + e.getMessage());
+            return identity;
+        }
+        for (String key : new String[] {"path", "size", "lastModified", "fileKey"}) {
+            if (!Objects.equals(identity.getProperty(key), record.getProperty(key))) {
+                return identity;
+            }
+        }
+        return record;
+    }
+
+    private static void writeRecord(Path recordFile, Properties record) {
+        if (recordFile == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(recordFile.getParent());
+            Path tmpFile = Files.createTempFile(recordFile.getParent(), recordFile.getFileName().toString(), ".tmp");
+            try {
+                try (OutputStream outputStream = Files.newOutputStream(tmpFile)) {
+                    record.store(outputStream, null);
+                }
+                Files.move(tmpFile, recordFile, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmpFile);
+            }
+        } catch (IOException e) {
+            Logger.warn("Could not write verification record " + recordFile + ": " + e.getMessage());
+        }
+    }
 }
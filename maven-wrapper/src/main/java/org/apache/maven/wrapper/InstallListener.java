@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Receives the lifecycle events of the wrapper, for example to report progress or timings. Listeners are set on the
+ * {@link Installer}, the {@link DefaultDownloader} and the {@link BootstrapMainStarter}, which the wrapper does with
+ * the listeners found by {@link #load(ClassLoader)}. Without a listener, no event is created.
+ * <p>
+ * Events may be sent from several threads. Timestamps are given by {@link System#nanoTime()}.
+ */
+public interface InstallListener {
+    /**
+     * Phases of a wrapper run.
+     */
+    enum Phase {
+        /** Reading the wrapper configuration and the system properties. */
+        CONFIGURE,
+        /** Installing the distribution, including all the phases below but the launch. */
+        INSTALL,
+        /** Resolving the local directories of the distribution. */
+        RESOLVE,
+        /** Waiting for another thread installing the same distribution. */
+        LOCK_WAIT,
+        /** Downloading a file, or a range of it. */
+        DOWNLOAD,
+        /** Verifying the checksum of the archive, or the files installed from it. */
+        VERIFY,
+        /** Extracting the archive. */
+        EXTRACT,
+        /** Preparing to hand over to Maven, ending when Maven starts. */
+        LAUNCH
+    }
+
+    /**
+     * @param phase the phase starting
+     * @param subject the URI or the path the phase applies to
+     * @param nanoTime when the phase started
+     */
+    default void started(Phase phase, String subject, long nanoTime) {}
+
+    /**
+     * @param phase the phase in progress
+     * @param subject the URI or the path the phase applies to
+     * @param bytes the number of bytes processed so far
+     * @param totalBytes the total number of bytes, or {@code -1} if unknown
+     * @param nanoTime when the progress was made
+     */
+    default void progress(Phase phase, String subject, long bytes, long totalBytes, long nanoTime) {}
+
+    /**
+     * @param phase the phase ending
+     * @param subject the URI or the path the phase applies to
+     * @param bytes the number of bytes processed, or {@code -1} if not applicable
+     * @param failure the failure ending the phase, or {@code null} if it succeeded
+     * @param nanoTime when the phase ended
+     */
+    default void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {}
+
+    /**
+     * @param phase the phase skipped, as its result is already there, for example a downloaded archive
+     * @param subject the URI or the path the phase applies to
+     * @param nanoTime when the phase was skipped
+     */
+    default void cached(Phase phase, String subject, long nanoTime) {}
+
+    /**
+     * Loads the listeners registered with {@link ServiceLoader}. Listeners that cannot be loaded are skipped.
+     *
+     * @param classLoader the class loader to load the listeners with
+     * @return the listener, a listener forwarding to all of them, or {@code null} if none was found
+     */
+    static InstallListener load(ClassLoader classLoader) {
+        List<InstallListener> listeners = new ArrayList<>();
+        Iterator<InstallListener> iterator =
+                ServiceLoader.load(InstallListener.class, classLoader).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                listeners.add(iterator.next());
+            } catch (ServiceConfigurationError e) {
+                Logger.warn("Could not load install listener: " + e.getMessage());
+            }
+        }
+        return compose(listeners);
+    }
+
+    /**
+     * @param listeners the listeners, {@code null} elements are ignored
+     * @return the listener, a listener forwarding to all of them, or {@code null} if there is none
+     */
+    static InstallListener compose(List<InstallListener> listeners) {
+        List<InstallListener> nonNull = new ArrayList<>(listeners);
+        nonNull.removeIf(listener -> listener == null);
+        if (nonNull.size() <= 1) {
+            return nonNull.isEmpty() ? null : nonNull.get(0);
+        }
+        return new InstallListener() {
+            @Override
+            public void started(Phase phase, String subject, long nanoTime) {
+                for (InstallListener listener : nonNull) {
+                    listener.started(phase, subject, nanoTime);
+                }
+            }
+
+            @Override
+            public void progress(Phase phase, String subject, long bytes, long totalBytes, long nanoTime) {
+                for (InstallListener listener : nonNull) {
+                    listener.progress(phase, subject, bytes, totalBytes, nanoTime);
+                }
+            }
+
+            @Override
+            public void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {
+                for (InstallListener listener : nonNull) {
+                    listener.ended(phase, subject, bytes, failure, nanoTime);
+                }
+            }
+
+            @Override
+            public void cached(Phase phase, String subject, long nanoTime) {
+                for (InstallListener listener : nonNull) {
+                    listener.cached(phase, subject, nanoTime);
+                }
+            }
+        };
+    }
+}
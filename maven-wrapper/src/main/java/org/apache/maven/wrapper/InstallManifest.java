@@ -0,0 +1,282 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Manifest of the files unpacked from a Maven distribution, with their size, modification time and SHA-256 sum, to
+ * detect and repair modified files without unpacking the whole distribution again.
+ * <p>
+ * Each line of the manifest holds the sum, size, modification time and path of a file, relative to the distribution
+ * directory, i.e. the name of its entry in the distribution archive.
+ */
+public class InstallManifest {
+    public static final String MANIFEST_FILE = "mvnw.manifest";
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * Reads the manifest of a distribution directory.
+     *
+     * @param distDir the distribution directory
+     * @return the manifest, or {@code null} if there is none or it is corrupt, the distribution being unpacked again
+     * @throws IOException if the manifest cannot be read
+     */
+    public static InstallManifest read(Path distDir) throws IOException {
+        Path manifestFile = distDir.resolve(MANIFEST_FILE);
+        InstallManifest manifest = new InstallManifest();
+        try (BufferedReader reader = Files.newBufferedReader(manifestFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(" ", 4);
+                if (fields.length != 4) {
+                    Logger.warn("Ignoring the corrupt installation manifest " + manifestFile + ": " + line);
+                    return null;
+                }
+                manifest.entries.add(
+                        new Entry(fields[3], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[0]));
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (NumberFormatException | CharacterCodingException e) {
+            Logger.warn("Ignoring the corrupt installation manifest " + manifestFile + ": " + e);
+            return null;
+        }
+        return manifest;
+    }
+
+    /**
+     * Writes an archive entry to a file of the distribution directory and adds it to the manifest.
+     *
+     * @param inStream the content of the entry
+     * @param distDir the distribution directory
+     * @param name the name of the entry
+     * @throws IOException if the file cannot be written
+     */
+    public void copy(InputStream inStream, Path distDir, String name) throws IOException {
+        entries.add(copyEntry(inStream, distDir, name));
+    }
+
+    /**
+     * Writes the manifest into the distribution directory.
+     *
+     * @param distDir the distribution directory
+     * @throws IOException if the manifest cannot be written
+     */
+    public void write(Path distDir) throws IOException {
+        Path manifestFile = distDir.resolve(MANIFEST_FILE);
+        Path tmpFile = distDir.resolve(MANIFEST_FILE + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+            for (Entry entry : entries) {
+                writer.write(entry.sha256Sum + " " + entry.size + " " + entry.lastModified + " " + entry.name);
+                writer.newLine();
+            }
+        }
+        Files.move(tmpFile, manifestFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Checks that the files of the distribution directory are unchanged. Only the files whose size or modification
+     * time differ from the manifest are hashed again, and the files whose content changed, or which were deleted, are
+     * unpacked again from the distribution archive. Files the distribution does not have are removed, but for the ones
+     * of {@code lib/ext}, where users add Maven core extensions, and the ones of the wrapper.
+     *
+     * @param distDir the distribution directory
+     * @param zip the distribution archive
+     * @return the number of repaired files
+     * @throws IOException if the files cannot be checked or repaired
+     */
+    public int validate(Path distDir, Path zip) throws IOException {
+        List<Entry> modified = new ArrayList<>();
+        FileDigester digester = newDigester();
+        boolean changed = false;
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            Path file = distDir.resolve(entry.name);
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                modified.add(entry);
+                continue;
+            }
+            if (attributes.size() == entry.size
+                    && attributes.lastModifiedTime().toMillis() == entry.lastModified) {
+                continue;
+            }
+            if (attributes.size() == entry.size
+                    && entry.sha256Sum.equals(FileDigester.toHex(digester.digest(file)[0]))) {
+                // touched but identical, remember the new modification time
+                long lastModified = attributes.lastModifiedTime().toMillis();
+                entries.set(i, new Entry(entry.name, entry.size, lastModified, entry.sha256Sum));
+                changed = true;
+            } else {
+                modified.add(entry);
+            }
+        }
+
+        int removed = removeExtraneousFiles(distDir);
+
+        if (!modified.isEmpty()) {
+            try (ZipFile zipFile = new ZipFile(zip.toFile())) {
+                for (Entry entry : modified) {
+                    Logger.warn("Repairing modified file " + distDir.resolve(entry.name) + " from " + zip);
+                    ZipEntry zipEntry = zipFile.getEntry(entry.name);
+                    if (zipEntry == null) {
+                        throw new IOException(String.format(
+                                Locale.ROOT, "Distribution archive '%s' has no entry '%s'.", zip, entry.name));
+                    }
+                    Entry repaired;
+                    try (InputStream inStream = zipFile.getInputStream(zipEntry)) {
+                        Files.deleteIfExists(distDir.resolve(entry.name));
+                        repaired = copyEntry(inStream, distDir, entry.name);
+                    }
+                    if (!repaired.sha256Sum.equals(entry.sha256Sum)) {
+                        throw new IOException(String.format(
+                                Locale.ROOT,
+                                "Entry '%s' of distribution archive '%s' does not match the installation manifest.",
+                                entry.name,
+                                zip));
+                    }
+                    entries.set(entries.indexOf(entry), repaired);
+                }
+            }
+            changed = true;
+        }
+        if (changed) {
+            write(distDir);
+        }
+        return modified.size() + removed;
+    }
+
+    /**
+     * Removes the files of the unpacked directories which are not in the manifest.
+     *
+     * @return the number of removed files
+     */
+    private int removeExtraneousFiles(Path distDir) throws IOException {
+        Set<String> names = new HashSet<>();
+        Set<String> roots = new TreeSet<>();
+        for (Entry entry : entries) {
+            names.add(entry.name);
+            int index = entry.name.indexOf('/');
+            if (index > 0) {
+                roots.add(entry.name.substring(0, index));
+            }
+        }
+        List<Path> extraneous = new ArrayList<>();
+        for (String root : roots) {
+            Path rootDir = distDir.resolve(root);
+            if (!Files.isDirectory(rootDir, LinkOption.NOFOLLOW_LINKS)) {
+                continue;
+            }
+            try (Stream<Path> files = Files.walk(rootDir)) {
+                files.filter(file -> !Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS))
+                        .filter(file -> !isExempt(rootDir.relativize(file)))
+                        .filter(file -> !names.contains(
+                                distDir.relativize(file).toString().replace(File.separatorChar, '/')))
+                        .forEach(extraneous::add);
+            }
+        }
+        for (Path file : extraneous) {
+            Logger.warn("Removing file " + file + " not coming from the distribution");
+            Files.delete(file);
+        }
+        return extraneous.size();
+    }
+
+    /**
+     * Tells whether a file of a Maven home, not coming from the distribution, is expected there.
+     */
+    private static boolean isExempt(Path relativePath) {
+        return relativePath.startsWith(Paths.get("lib", "ext"))
+                || (relativePath.getNameCount() == 1 && relativePath.toString().startsWith("mvnw"));
+    }
+
+    private static Entry copyEntry(InputStream inStream, Path distDir, String name) throws IOException {
+        Path file = distDir.resolve(name);
+        Files.createDirectories(file.getParent());
+        DigestInputStream digestStream = new DigestInputStream(inStream, sha256());
+        long size = Files.copy(digestStream, file);
+        return new Entry(
+                name,
+                size,
+                Files.getLastModifiedTime(file).toMillis(),
+                FileDigester.toHex(digestStream.getMessageDigest().digest()));
+    }
+
+    private static FileDigester newDigester() {
+        try {
+            return new FileDigester(Verifier.SHA_256_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance(Verifier.SHA_256_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final String name;
+
+        private final long size;
+
+        private final long lastModified;
+
+        private final String sha256Sum;
+
+        Entry(String name, long size, long lastModified, String sha256Sum) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.sha256Sum = sha256Sum;
+        }
+    }
+}
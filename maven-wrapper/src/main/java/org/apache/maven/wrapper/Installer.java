@@ -21,7 +21,9 @@ package org.apache.maven.wrapper;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -29,80 +31,355 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 
+import org.apache.maven.wrapper.InstallListener.Phase;
+
 /**
- * Maven distribution installer, eventually using a {@link Downloader} first.
+ * Maven distribution installer, eventually using a {@link Downloader} first. Concurrent installations of the same
+ * distribution within the JVM share a single installation, whether started with {@link #createDist} or with
+ * {@link #createDistAsync}. The installer is configured before its first use.
  *
  * @author Hans Dockter
  */
 public class Installer {
     public static final Path DEFAULT_DISTRIBUTION_PATH = Paths.get("wrapper", "dists");
 
+    /**
+     * File in the Maven home pointing to the distribution archive, for installations that did not extract the
+     * {@code lib/*.jar} files.
+     */
+    public static final String ARCHIVE_FILE = "mvnw.archive";
+
+    /**
+     * Suffix of the distribution archive downloaded by a background revalidation, installed by the next run.
+     */
+    private static final String NEXT_SUFFIX = ".next";
+
+    /**
+     * Suffix of the file whose modification time is the last time a revalidation found the distribution unchanged.
+     */
+    private static final String REVALIDATED_SUFFIX = ".revalidated";
+
+    /**
+     * Revalidations running for longer than this are considered dead.
+     */
+    private static final long STALE_LOCK_MILLIS = 60 * 60 * 1000L;
+
+    /**
+     * How long to wait for the extensions once the distribution is installed, before leaving them to Maven.
+     */
+    private static final long EXTENSIONS_TIMEOUT_MILLIS = 30 * 1000L;
+
+    /**
+     * Installations in progress in this JVM, by absolute distribution directory.
+     */
+    private static final ConcurrentMap<Path, CompletableFuture<Path>> INSTALLATIONS = new ConcurrentHashMap<>();
+
     private final Downloader download;
 
     private final Verifier verifier;
 
     private final PathAssembler pathAssembler;
 
+    private Path localRepository;
+
+    private Runnable backgroundRevalidation;
+
+    private ExtensionsPrefetcher extensionsPrefetcher;
+
+    private Executor executor;
+
+    private InstallListener listener;
+
     public Installer(Downloader download, Verifier verifier, PathAssembler pathAssembler) {
         this.download = download;
         this.verifier = verifier;
         this.pathAssembler = pathAssembler;
     }
 
+    /**
+     * Sets the local Maven repository, where incremental installations look for the libraries of the distribution.
+     *
+     * @param localRepository the local Maven repository, or {@code null}
+     */
+    public void setLocalRepository(Path localRepository) {
+        this.localRepository = localRepository;
+    }
+
+    /**
+     * Sets how to start the background revalidation of snapshot distributions, typically a process calling
+     * {@link #revalidate(WrapperConfiguration)}. Without it, snapshots with {@code alwaysDownload} are always
+     * downloaded before launching Maven.
+     *
+     * @param backgroundRevalidation starts the background revalidation, or {@code null}
+     */
+    public void setBackgroundRevalidation(Runnable backgroundRevalidation) {
+        this.backgroundRevalidation = backgroundRevalidation;
+    }
+
+    /**
+     * Sets the prefetcher of the core extensions of the project, started when the distribution is not installed yet.
+     *
+     * @param extensionsPrefetcher the prefetcher, or {@code null}
+     */
+    public void setExtensionsPrefetcher(ExtensionsPrefetcher extensionsPrefetcher) {
+        this.extensionsPrefetcher = extensionsPrefetcher;
+    }
+
+    /**
+     * Sets the executor running the installations started with {@link #createDistAsync(WrapperConfiguration)}. By
+     * default, each installation runs on a new virtual thread when the runtime supports them, and on a daemon thread
+     * otherwise.
+     *
+     * @param executor the executor, or {@code null} for the default one
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Sets the listener notified of the resolution, verification and extraction of the distribution, and of waiting
+     * for its installation by another thread.
+     *
+     * @param listener the listener, or {@code null}
+     */
+    public void setInstallListener(InstallListener listener) {
+        this.listener = listener;
+    }
+
     public Path createDist(WrapperConfiguration configuration) throws Exception {
+        try {
+            // runs the installation in the calling thread, unless the same distribution is already being installed
+            return install(configuration, Runnable::run).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Installs the distribution on the configured executor. Concurrent calls for the same distribution share its
+     * installation.
+     *
+     * @param configuration the wrapper configuration
+     * @return the Maven home, completed exceptionally if the installation failed
+     */
+    public CompletableFuture<Path> createDistAsync(WrapperConfiguration configuration) {
+        return createDistAsync(configuration, executor != null ? executor : DefaultExecutor.INSTANCE);
+    }
+
+    /**
+     * Installs the distribution on the given executor, unless the same distribution is already being installed.
+     *
+     * @param configuration the wrapper configuration
+     * @param executor the executor running the installation
+     * @return the Maven home, completed exceptionally if the installation failed
+     */
+    public CompletableFuture<Path> createDistAsync(WrapperConfiguration configuration, Executor executor) {
+        // each caller gets its own future, cancelling it does not cancel the shared installation
+        return install(configuration, executor).thenApply(mavenHome -> mavenHome);
+    }
+
+    private CompletableFuture<Path> install(WrapperConfiguration configuration, Executor executor) {
+        started(Phase.RESOLVE, configuration.getDistribution());
+        Path key = pathAssembler
+                .getDistribution(configuration)
+                .getDistributionDir()
+                .toAbsolutePath()
+                .normalize();
+        ended(Phase.RESOLVE, configuration.getDistribution(), -1, null);
+        CompletableFuture<Path> installation = new CompletableFuture<>();
+        CompletableFuture<Path> running = INSTALLATIONS.putIfAbsent(key, installation);
+        if (running != null) {
+            Logger.info("Waiting for the installation of " + key + " in progress");
+            if (listener != null) {
+                started(Phase.LOCK_WAIT, key);
+                running.whenComplete((mavenHome, failure) -> ended(Phase.LOCK_WAIT, key, -1, failure));
+            }
+            return running;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    started(Phase.INSTALL, key);
+                    Path mavenHome = createDistNow(configuration);
+                    ended(Phase.INSTALL, key, -1, null);
+                    INSTALLATIONS.remove(key, installation);
+                    installation.complete(mavenHome);
+                } catch (Throwable e) {
+                    ended(Phase.INSTALL, key, -1, e);
+                    INSTALLATIONS.remove(key, installation);
+                    installation.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            INSTALLATIONS.remove(key, installation);
+            installation.completeExceptionally(e);
+        }
+        return installation;
+    }
+
+    private Path createDistNow(WrapperConfiguration configuration) throws Exception {
+        if (extensionsPrefetcher == null
+                || !listDirs(pathAssembler.getDistribution(configuration).getDistributionDir())
+                        .isEmpty()) {
+            return installDist(configuration);
+        }
+        // overlap downloading the extensions Maven resolves first with installing the distribution
+        extensionsPrefetcher.start();
+        Path distDir;
+        try {
+            distDir = installDist(configuration);
+        } catch (Throwable e) {
+            // Maven does not start, the extensions are not waited for
+            extensionsPrefetcher.cancel();
+            throw e;
+        }
+        extensionsPrefetcher.await(EXTENSIONS_TIMEOUT_MILLIS);
+        return distDir;
+    }
+
+    private Path installDist(WrapperConfiguration configuration) throws Exception {
         URI distributionUrl = configuration.getDistribution();
 
         boolean alwaysDownload = configuration.isAlwaysDownload();
         boolean alwaysUnpack = configuration.isAlwaysUnpack();
+        // the Maven Daemon client runs in its own process and needs its jars on disk
+        boolean launchFromArchive = configuration.isLaunchFromArchive() && !WrapperExecutor.isMvnd(distributionUrl);
+        boolean validateInstallation = configuration.isValidateInstallation();
+        boolean fetchDistributionChecksum = configuration.isFetchDistributionChecksum();
         boolean verifyDistributionSha256Sum =
                 !configuration.getDistributionSha256Sum().isEmpty();
 
         PathAssembler.LocalDistribution localDistribution = pathAssembler.getDistribution(configuration);
         Path localZipFile = localDistribution.getZipFile();
+        // local archives, e.g. on a network share, are unzipped where they are instead of being copied first
+        Path localSource = localSource(distributionUrl);
+        boolean unzipSource = localSource != null && Files.isRegularFile(localSource);
+        Path archive = unzipSource ? localSource : localZipFile;
 
-        if (alwaysDownload || alwaysUnpack || Files.notExists(localZipFile)) {
+        // assembling skips the archive, which is needed to launch from it, to repair files, and to verify checksums
+        boolean incrementalInstall = configuration.isIncrementalInstall()
+                && !launchFromArchive
+                && !validateInstallation
+                && !fetchDistributionChecksum
+                && !verifyDistributionSha256Sum
+                && distributionUrl.getPath() != null
+                && distributionUrl.getPath().endsWith(".zip")
+                && ("https".equals(distributionUrl.getScheme()) || "http".equals(distributionUrl.getScheme()));
+        if (incrementalInstall && !alwaysDownload && Files.notExists(localZipFile)) {
+            Path mavenHome = assembleDistribution(
+                    distributionUrl,
+                    localDistribution.getDistributionDir(),
+                    pathAssembler.getDistributionsDir(configuration),
+                    alwaysUnpack);
+            if (mavenHome != null) {
+                return mavenHome;
+            }
+        }
+
+        boolean promoted = false;
+        if (alwaysDownload
+                && !unzipSource
+                && configuration.isStaleWhileRevalidate()
+                && backgroundRevalidation != null
+                && distributionUrl.toString().contains("SNAPSHOT")) {
+            Path nextZipFile = localZipFile.resolveSibling(localZipFile.getFileName() + NEXT_SUFFIX);
+            if (Files.exists(nextZipFile)) {
+                Logger.info("Using the distribution downloaded in the background " + nextZipFile.toAbsolutePath());
+                Files.move(nextZipFile, localZipFile, StandardCopyOption.REPLACE_EXISTING);
+                promoted = true;
+                alwaysDownload = false;
+            } else if (!isStale(localZipFile, localDistribution.getDistributionDir(), configuration)) {
+                alwaysDownload = false;
+            }
+            if (!alwaysDownload) {
+                Logger.info("Checking for a newer " + distributionUrl + " in the background");
+                backgroundRevalidation.run();
+            }
+        }
+
+        if (alwaysDownload || alwaysUnpack || Files.notExists(archive)) {
             Logger.info("Installing Maven distribution "
                     + localDistribution.getDistributionDir().toAbsolutePath());
         }
 
-        boolean downloaded = false;
-        if (alwaysDownload || Files.notExists(localZipFile)) {
+        // the local archive may have been replaced, like a downloaded one
+        boolean downloaded = promoted || (unzipSource && alwaysDownload);
+        if (!unzipSource && (alwaysDownload || Files.notExists(localZipFile))) {
             Logger.info("Downloading " + distributionUrl);
             Path tmpZipFile = localZipFile.resolveSibling(localZipFile.getFileName() + ".part");
             Files.deleteIfExists(tmpZipFile);
-            download.download(distributionUrl, tmpZipFile);
-            Files.move(tmpZipFile, localZipFile, StandardCopyOption.REPLACE_EXISTING);
+            if (fetchDistributionChecksum || verifyDistributionSha256Sum) {
+                downloadAndDigest(distributionUrl, tmpZipFile, localZipFile, fetchDistributionChecksum);
+            } else {
+                download.download(distributionUrl, tmpZipFile);
+                Files.move(tmpZipFile, localZipFile, StandardCopyOption.REPLACE_EXISTING);
+            }
             downloaded = Files.exists(localZipFile);
+        } else {
+            cached(Phase.DOWNLOAD, unzipSource ? localSource : distributionUrl);
         }
 
         Path distDir = localDistribution.getDistributionDir();
         List<Path> dirs = listDirs(distDir);
 
-        if (downloaded || alwaysUnpack || dirs.isEmpty()) {
-            if (verifyDistributionSha256Sum) {
-                verifier.verify(
-                        localZipFile,
-                        "distributionSha256Sum",
-                        Verifier.SHA_256_ALGORITHM,
-                        configuration.getDistributionSha256Sum());
+        boolean libsMissing = dirs.size() == 1 && Files.exists(dirs.get(0).resolve(ARCHIVE_FILE));
+        InstallManifest manifest = validateInstallation && !dirs.isEmpty() ? InstallManifest.read(distDir) : null;
+
+        if (downloaded
+                || alwaysUnpack
+                || dirs.isEmpty()
+                || (libsMissing && !launchFromArchive)
+                || (validateInstallation && manifest == null)) {
+            if (verifyDistributionSha256Sum || (unzipSource && fetchDistributionChecksum)) {
+                verifyArchive(
+                        configuration,
+                        archive,
+                        verifyDistributionSha256Sum,
+                        unzipSource && fetchDistributionChecksum,
+                        localZipFile);
             }
             for (Path dir : dirs) {
                 Logger.info("Deleting directory " + dir.toAbsolutePath());
                 deleteDir(dir);
             }
-            Logger.info("Unzipping " + localZipFile.toAbsolutePath() + " to " + distDir.toAbsolutePath());
-            unzip(localZipFile, distDir);
+            Logger.info("Unzipping " + archive.toAbsolutePath() + " to " + distDir.toAbsolutePath()
+                    + (launchFromArchive ? " except lib/*.jar" : ""));
+            started(Phase.EXTRACT, archive);
+            try {
+                unzip(archive, distDir, launchFromArchive, validateInstallation);
+            } catch (IOException | RuntimeException e) {
+                ended(Phase.EXTRACT, archive, -1, e);
+                throw e;
+            }
+            ended(Phase.EXTRACT, archive);
             dirs = listDirs(distDir);
             if (dirs.isEmpty()) {
                 throw new RuntimeException(String.format(
@@ -111,7 +388,17 @@ public class Installer {
                                 + " Expected to find exactly 1 directory.",
                         distDir));
             }
+            if (launchFromArchive) {
+                Files.write(
+                        dirs.get(0).resolve(ARCHIVE_FILE),
+                        archive.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8));
+            }
             setExecutablePermissions(dirs.get(0));
+        } else {
+            cached(Phase.EXTRACT, distDir);
+            if (manifest != null && dirs.size() == 1 && validateInstallation(manifest, distDir, archive) > 0) {
+                setExecutablePermissions(dirs.get(0));
+            }
         }
         if (dirs.size() != 1) {
             throw new RuntimeException(String.format(
@@ -122,6 +409,334 @@ public class Installer {
         return dirs.get(0);
     }
 
+    private void verifyArchive(
+            WrapperConfiguration configuration,
+            Path archive,
+            boolean verifySha256Sum,
+            boolean verifyPublishedChecksum,
+            Path localZipFile)
+            throws Exception {
+        started(Phase.VERIFY, archive);
+        try {
+            if (verifySha256Sum) {
+                verifier.verify(
+                        archive,
+                        "distributionSha256Sum",
+                        Verifier.SHA_256_ALGORITHM,
+                        configuration.getDistributionSha256Sum());
+            }
+            if (verifyPublishedChecksum) {
+                verifyPublishedChecksum(configuration.getDistribution(), archive, localZipFile);
+            }
+        } catch (Exception e) {
+            ended(Phase.VERIFY, archive, -1, e);
+            throw e;
+        }
+        ended(Phase.VERIFY, archive);
+    }
+
+    /**
+     * Validates the installed files against the install manifest, repairing the modified ones.
+     *
+     * @return the number of files repaired
+     */
+    private int validateInstallation(InstallManifest manifest, Path distDir, Path archive) throws IOException {
+        started(Phase.VERIFY, distDir);
+        try {
+            int repaired = manifest.validate(distDir, archive);
+            ended(Phase.VERIFY, distDir, -1, null);
+            return repaired;
+        } catch (IOException | RuntimeException e) {
+            ended(Phase.VERIFY, distDir, -1, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the distribution again next to the installed one, for the next {@link #createDist} to install it. An
+     * unchanged distribution is discarded. Only one revalidation runs at a time.
+     *
+     * @param configuration the wrapper configuration
+     * @throws Exception if the distribution cannot be downloaded or validated
+     */
+    public void revalidate(WrapperConfiguration configuration) throws Exception {
+        URI distributionUrl = configuration.getDistribution();
+        Path localZipFile = pathAssembler.getDistribution(configuration).getZipFile();
+        Path nextZipFile = localZipFile.resolveSibling(localZipFile.getFileName() + NEXT_SUFFIX);
+        Path lockFile = localZipFile.resolveSibling(localZipFile.getFileName() + ".revalidating");
+        Files.createDirectories(localZipFile.getParent());
+        try {
+            Files.createFile(lockFile);
+        } catch (FileAlreadyExistsException e) {
+            if (Files.getLastModifiedTime(lockFile).toMillis() > System.currentTimeMillis() - STALE_LOCK_MILLIS) {
+                Logger.info("Revalidation of " + distributionUrl + " already running");
+                return;
+            }
+            Files.setLastModifiedTime(lockFile, FileTime.fromMillis(System.currentTimeMillis()));
+        }
+        try {
+            Path tmpZipFile = nextZipFile.resolveSibling(nextZipFile.getFileName() + ".part");
+            Files.deleteIfExists(tmpZipFile);
+            if (configuration.isFetchDistributionChecksum()
+                    || !configuration.getDistributionSha256Sum().isEmpty()) {
+                downloadAndDigest(
+                        distributionUrl, tmpZipFile, nextZipFile, configuration.isFetchDistributionChecksum());
+            } else {
+                download.download(distributionUrl, tmpZipFile);
+                Files.move(tmpZipFile, nextZipFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (Files.exists(localZipFile) && sameContent(nextZipFile, localZipFile)) {
+                Logger.info(distributionUrl + " is unchanged");
+                Files.delete(nextZipFile);
+            }
+            Path revalidatedFile = localZipFile.resolveSibling(localZipFile.getFileName() + REVALIDATED_SUFFIX);
+            Files.write(revalidatedFile, new byte[0]);
+        } finally {
+            Files.deleteIfExists(lockFile);
+        }
+    }
+
+    /**
+     * Tells whether the installed distribution is missing, or older than the maximum staleness. Its age is the time
+     * since it was last downloaded or found unchanged by a revalidation.
+     */
+    private boolean isStale(Path localZipFile, Path distDir, WrapperConfiguration configuration) throws IOException {
+        if (Files.notExists(localZipFile) || listDirs(distDir).isEmpty()) {
+            return true;
+        }
+        long validated = Files.getLastModifiedTime(localZipFile).toMillis();
+        Path revalidatedFile = localZipFile.resolveSibling(localZipFile.getFileName() + REVALIDATED_SUFFIX);
+        if (Files.exists(revalidatedFile)) {
+            validated = Math.max(validated, Files.getLastModifiedTime(revalidatedFile).toMillis());
+        }
+        if (System.currentTimeMillis() - validated > configuration.getMaxStaleness().toMillis()) {
+            Logger.info("Installed " + configuration.getDistribution() + " is older than "
+                    + configuration.getMaxStaleness() + ", downloading it again");
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean sameContent(Path file1, Path file2) throws IOException {
+        if (Files.size(file1) != Files.size(file2)) {
+            return false;
+        }
+        try (InputStream inStream1 = Files.newInputStream(file1);
+                InputStream inStream2 = Files.newInputStream(file2)) {
+            byte[] buffer1 = new byte[64 * 1024];
+            byte[] buffer2 = new byte[buffer1.length];
+            int length;
+            while ((length = inStream1.read(buffer1)) != -1) {
+                int read = 0;
+                while (read < length) {
+                    int count = inStream2.read(buffer2, read, length - read);
+                    if (count == -1) {
+                        return false;
+                    }
+                    read += count;
+                }
+                for (int i = 0; i < length; i++) {
+                    if (buffer1[i] != buffer2[i]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Installs the distribution from the files of other installed distributions and of the local repository, only
+     * downloading the missing parts of the archive.
+     *
+     * @return the Maven home, or {@code null} if the distribution could not be assembled
+     */
+    private Path assembleDistribution(URI distributionUrl, Path distDir, Path distributionsDir, boolean alwaysUnpack)
+            throws IOException {
+        List<Path> dirs = listDirs(distDir);
+        if (!alwaysUnpack && dirs.size() == 1 && Files.exists(distDir.resolve(DistributionAssembler.ASSEMBLED_FILE))) {
+            return dirs.get(0);
+        }
+        Logger.info("Installing Maven distribution " + distDir.toAbsolutePath());
+        for (Path dir : dirs) {
+            Logger.info("Deleting directory " + dir.toAbsolutePath());
+            deleteDir(dir);
+        }
+        try {
+            new DistributionAssembler(download, distributionsDir, localRepository).assemble(distributionUrl, distDir);
+        } catch (Exception e) {
+            Logger.warn("Could not assemble " + distributionUrl + ", downloading the whole archive: " + e);
+            return null;
+        }
+        dirs = listDirs(distDir);
+        if (dirs.size() != 1) {
+            Logger.warn("Assembled " + distributionUrl + " does not contain exactly 1 directory,"
+                    + " downloading the whole archive");
+            return null;
+        }
+        setExecutablePermissions(dirs.get(0));
+        return dirs.get(0);
+    }
+
+    /**
+     * Downloads the distribution while computing its SHA-256 and SHA-512 sums, which are recorded so that verifying the
+     * unchanged archive later does not hash it again. If requested, the checksum published next to the distribution is
+     * fetched concurrently, and the download is checked against it.
+     */
+    private void downloadAndDigest(URI distributionUrl, Path tmpZipFile, Path localZipFile, boolean fetchChecksum)
+            throws Exception {
+        FutureTask<String[]> publishedChecksum = null;
+        if (fetchChecksum) {
+            publishedChecksum = new FutureTask<>(() -> fetchChecksum(distributionUrl, localZipFile));
+            Thread thread = new Thread(publishedChecksum, "mvnw-checksum");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String[] algorithms = {Verifier.SHA_256_ALGORITHM, Verifier.SHA_512_ALGORITHM};
+        byte[][] hashes = download.download(distributionUrl, tmpZipFile, new FileDigester(algorithms));
+
+        if (publishedChecksum != null) {
+            started(Phase.VERIFY, distributionUrl);
+            try {
+                checkPublishedChecksum(distributionUrl, publishedChecksum.get(), algorithms, hashes);
+            } catch (RuntimeException e) {
+                ended(Phase.VERIFY, distributionUrl, -1, e);
+                Files.deleteIfExists(tmpZipFile);
+                throw e;
+            }
+            ended(Phase.VERIFY, distributionUrl, -1, null);
+        }
+
+        dateBack(tmpZipFile);
+        Files.move(tmpZipFile, localZipFile, StandardCopyOption.REPLACE_EXISTING);
+        for (int i = 0; i < algorithms.length; i++) {
+            verifier.record(localZipFile, algorithms[i], FileDigester.toHex(hashes[i]));
+        }
+    }
+
+    /**
+     * @return the local file of a {@code file:} URI, or {@code null} if it has none on this platform, like a URI with a
+     *         host outside of Windows, which is downloaded then
+     */
+    private static Path localSource(URI distributionUrl) {
+        if (!"file".equals(distributionUrl.getScheme())) {
+            return null;
+        }
+        try {
+            return Paths.get(distributionUrl);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Dates a downloaded archive, no longer written, back beyond the modification time granularity: any later change
+     * gets another modification time, so the sums computed while downloading can be recorded. An archive linked from
+     * the local repository is left as it is, its modification time is not the one of the wrapper to change.
+     */
+    private static void dateBack(Path archive) throws IOException {
+        long dated = System.currentTimeMillis() - HashAlgorithmVerifier.MODIFICATION_TIME_GRANULARITY - 1000;
+        if (Files.getLastModifiedTime(archive).toMillis() <= dated || linkCount(archive) > 1) {
+            return;
+        }
+        Files.setLastModifiedTime(archive, FileTime.fromMillis(dated));
+    }
+
+    private static int linkCount(Path file) {
+        try {
+            return (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            return 1;
+        }
+    }
+
+    /**
+     * Validates a local distribution archive against the checksum published next to it.
+     */
+    private void verifyPublishedChecksum(URI distributionUrl, Path archive, Path localZipFile) throws Exception {
+        String[] checksum = fetchChecksum(distributionUrl, localZipFile);
+        String[] algorithms = {Verifier.SHA_256_ALGORITHM, Verifier.SHA_512_ALGORITHM};
+        byte[][] hashes = new FileDigester(algorithms).digest(archive);
+        checkPublishedChecksum(distributionUrl, checksum, algorithms, hashes);
+        for (int i = 0; i < algorithms.length; i++) {
+            verifier.record(archive, algorithms[i], FileDigester.toHex(hashes[i]));
+        }
+    }
+
+    private static void checkPublishedChecksum(
+            URI distributionUrl, String[] checksum, String[] algorithms, byte[][] hashes) {
+        if (checksum == null) {
+            Logger.warn("No checksum published for " + distributionUrl + ", it cannot be validated.");
+            return;
+        }
+        byte[] expectedHash = FileDigester.fromHex(checksum[1]);
+        byte[] actualHash = hashes[Arrays.asList(algorithms).indexOf(checksum[0])];
+        if (expectedHash == null || !MessageDigest.isEqual(expectedHash, actualHash)) {
+            throw new RuntimeException(String.format(
+                    Locale.ROOT,
+                    "Failed to validate Maven distribution %s against the checksum published at %s,"
+                            + " your Maven distribution might be compromised.",
+                    checksum[0],
+                    checksum[2]));
+        }
+        Logger.info("Validated " + checksum[0] + " hash of " + distributionUrl + " against " + checksum[2]);
+    }
+
+    /**
+     * Fetches the checksum published next to the distribution, preferring SHA-512 over SHA-256.
+     *
+     * @return the algorithm, sum and address of the checksum, or {@code null} if none is published
+     */
+    private String[] fetchChecksum(URI distributionUrl, Path localZipFile) {
+        String[][] checksums = {{".sha512", Verifier.SHA_512_ALGORITHM}, {".sha256", Verifier.SHA_256_ALGORITHM}};
+        for (String[] checksum : checksums) {
+            URI checksumUrl = URI.create(distributionUrl + checksum[0]);
+            Path checksumFile = localZipFile.resolveSibling(localZipFile.getFileName() + checksum[0]);
+            try {
+                Files.deleteIfExists(checksumFile);
+                download.download(checksumUrl, checksumFile);
+                // the file holds the hex sum, optionally followed by the file name
+                String[] content = new String(Files.readAllBytes(checksumFile), StandardCharsets.UTF_8)
+                        .trim()
+                        .split("\\s+");
+                if (!content[0].isEmpty()) {
+                    return new String[] {checksum[1], content[0], checksumUrl.toString()};
+                }
+            } catch (Exception e) {
+                Logger.info("Could not fetch " + checksumUrl + ": " + e);
+            }
+        }
+        return null;
+    }
+
+    private void started(Phase phase, Object subject) {
+        if (listener != null) {
+            listener.started(phase, subject.toString(), System.nanoTime());
+        }
+    }
+
+    private void ended(Phase phase, Object subject, long bytes, Throwable failure) {
+        if (listener != null) {
+            listener.ended(phase, subject.toString(), bytes, failure, System.nanoTime());
+        }
+    }
+
+    /**
+     * Ends a phase that processed a whole file.
+     */
+    private void ended(Phase phase, Path file) throws IOException {
+        if (listener != null) {
+            ended(phase, file, Files.size(file), null);
+        }
+    }
+
+    private void cached(Phase phase, Object subject) {
+        if (listener != null) {
+            listener.cached(phase, subject.toString(), System.nanoTime());
+        }
+    }
+
     private List<Path> listDirs(Path distDir) throws IOException {
         List<Path> dirs = new ArrayList<>();
         if (Files.exists(distDir)) {
@@ -140,7 +755,21 @@ public class Installer {
         if (isWindows()) {
             return;
         }
-        Path mavenCommand = mavenHome.resolve("bin/mvn");
+        if (Files.exists(mavenHome.resolve("bin/mvnd.sh"))) {
+            // Maven Daemon: native and java clients, and the embedded Maven
+            setExecutablePermission(mavenHome.resolve("bin/mvnd.sh"));
+            if (Files.exists(mavenHome.resolve("bin/mvnd"))) {
+                setExecutablePermission(mavenHome.resolve("bin/mvnd"));
+            }
+            if (Files.exists(mavenHome.resolve("mvn/bin/mvn"))) {
+                setExecutablePermission(mavenHome.resolve("mvn/bin/mvn"));
+            }
+        } else {
+            setExecutablePermission(mavenHome.resolve("bin/mvn"));
+        }
+    }
+
+    private void setExecutablePermission(Path mavenCommand) {
         try {
             Set<PosixFilePermission> perms = PosixFilePermissions.fromString("rwxr-xr-x");
             Files.setPosixFilePermissions(mavenCommand, perms);
@@ -175,7 +804,14 @@ public class Installer {
     }
 
     public void unzip(Path zip, Path dest) throws IOException {
+        unzip(zip, dest, false, false);
+    }
+
+    private void unzip(Path zip, Path dest, boolean skipLibraries, boolean writeManifest) throws IOException {
         final Path destDir = dest.normalize();
+        final InstallManifest manifest = writeManifest ? new InstallManifest() : null;
+        Files.deleteIfExists(destDir.resolve(InstallManifest.MANIFEST_FILE));
+        Files.deleteIfExists(destDir.resolve(DistributionAssembler.ASSEMBLED_FILE));
         try (ZipFile zipFile = new ZipFile(zip.toFile())) {
             final Enumeration<? extends ZipEntry> entries = zipFile.entries();
 
@@ -187,16 +823,49 @@ public class Installer {
                     throw new ZipException("Zip includes an invalid entry: " + entry.getName());
                 }
 
-                if (entry.isDirectory()) {
+                if (entry.isDirectory() || (skipLibraries && isLibrary(entry.getName()))) {
                     continue;
                 }
 
                 Files.createDirectories(fileEntry.getParent());
 
                 try (InputStream inStream = zipFile.getInputStream(entry)) {
-                    Files.copy(inStream, fileEntry);
+                    if (manifest != null) {
+                        manifest.copy(inStream, destDir, entry.getName());
+                    } else {
+                        Files.copy(inStream, fileEntry);
+                    }
                 }
             }
         }
+        if (manifest != null) {
+            manifest.write(destDir);
+        }
+    }
+
+    private static boolean isLibrary(String entryName) {
+        int root = entryName.indexOf('/');
+        return entryName.startsWith("lib/", root + 1) && entryName.endsWith(".jar");
+    }
+
+    /**
+     * Runs each installation on a new virtual thread when the runtime supports them, and on a daemon thread otherwise.
+     */
+    private static final class DefaultExecutor {
+        static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            try {
+                return (Executor) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return Executors.newCachedThreadPool(task -> {
+                    Thread thread = new Thread(task, "mvnw-installer");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
     }
 }
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Downloader taking Maven distributions from the local Maven repository when they are already there, and delegating to
+ * another downloader otherwise. The archive is hard linked into the destination when possible, and copied otherwise.
+ * Snapshots are always downloaded, their local copy may be older than the remote one.
+ */
+public class LocalRepositoryDownloader implements Downloader {
+    private static final String MAVEN_GROUP_PATH = "org/apache/maven/";
+
+    private final Downloader delegate;
+
+    private final Path localRepository;
+
+    public LocalRepositoryDownloader(Downloader delegate, Path localRepository) {
+        this.delegate = delegate;
+        this.localRepository = localRepository.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void download(URI address, Path destination) throws Exception {
+        if (!copyFromLocalRepository(address, destination)) {
+            delegate.download(address, destination);
+        }
+    }
+
+    @Override
+    public byte[][] download(URI address, Path destination, FileDigester digester) throws Exception {
+        if (copyFromLocalRepository(address, destination)) {
+            return digester.digest(destination);
+        }
+        return delegate.download(address, destination, digester);
+    }
+
+    @Override
+    public byte[] downloadRange(URI address, long offset, int length) throws Exception {
+        return delegate.downloadRange(address, offset, length);
+    }
+
+    private boolean copyFromLocalRepository(URI address, Path destination) throws IOException {
+        String path = address.getPath();
+        // only archives: checksums are fetched from the remote repository to validate the local archive
+        if (path == null || !(path.endsWith(".zip") || path.endsWith(".tar.gz"))) {
+            return false;
+        }
+        int index = path.indexOf(MAVEN_GROUP_PATH);
+        if (index < 0 || path.contains("-SNAPSHOT/")) {
+            return false;
+        }
+        Path artifact = localRepository.resolve(path.substring(index)).normalize();
+        if (!artifact.startsWith(localRepository) || !Files.isRegularFile(artifact)) {
+            return false;
+        }
+        if (Files.exists(destination)) {
+            return true;
+        }
+
+        Files.createDirectories(destination.getParent());
+        try {
+            Files.createLink(destination, artifact);
+            Logger.info("Linked " + artifact + " from the local repository");
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            Files.copy(artifact, destination);
+            Logger.info("Copied " + artifact + " from the local repository");
+        }
+        return true;
+    }
+}
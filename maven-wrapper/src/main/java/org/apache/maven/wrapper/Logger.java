@@ -30,6 +30,13 @@ public final class Logger {
         }
     }
 
+    /**
+     * Prints an information message whether or not the wrapper is verbose, for results the user asked for.
+     */
+    public static void result(String msg) {
+        System.out.printf("[INFO] %s%n", msg);
+    }
+
     public static void warn(String msg) {
         System.err.printf("[WARNING] %s%n", msg);
     }
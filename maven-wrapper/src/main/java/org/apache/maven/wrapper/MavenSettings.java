@@ -0,0 +1,421 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * The few elements of a Maven {@code settings.xml} file the wrapper needs, read without Maven.
+ */
+public class MavenSettings {
+    public static final String MAVEN_REPO_LOCAL_PROPERTY = "maven.repo.local";
+
+    private static final Pattern EXPRESSION = Pattern.compile("\\$\\{([^}]+)}");
+
+    /**
+     * The id of Maven Central, which the wrapper downloads from by default.
+     */
+    public static final String CENTRAL_ID = "central";
+
+    public static final String CENTRAL_URL = "https://repo.maven.apache.org/maven2/";
+
+    private String localRepository;
+
+    private final List<Mirror> mirrors = new ArrayList<>();
+
+    private final List<Proxy> proxies = new ArrayList<>();
+
+    private final List<Server> servers = new ArrayList<>();
+
+    /**
+     * Reads a settings file. A missing or invalid file gives empty settings.
+     *
+     * @param settingsFile the settings file
+     * @return the settings
+     */
+    public static MavenSettings read(Path settingsFile) {
+        MavenSettings settings = new MavenSettings();
+        if (!Files.isRegularFile(settingsFile)) {
+            return settings;
+        }
+        try (InputStream inStream = Files.newInputStream(settingsFile)) {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            factory.setExpandEntityReferences(false);
+            DocumentBuilder builder = factory.newDocumentBuilder();
+            settings.parse(builder.parse(inStream).getDocumentElement());
+        } catch (Exception e) {
+            Logger.warn("Could not read Maven settings " + settingsFile + ": " + e.getMessage());
+        }
+        return settings;
+    }
+
+    private void parse(Element root) {
+        localRepository = childText(root, "localRepository");
+        for (Element element : children(root, "mirrors", "mirror")) {
+            Mirror mirror = new Mirror(
+                    childText(element, "id"), childText(element, "url"), childText(element, "mirrorOf"));
+            if (mirror.url != null && mirror.mirrorOf != null) {
+                mirrors.add(mirror);
+            }
+        }
+        for (Element element : children(root, "proxies", "proxy")) {
+            String active = childText(element, "active");
+            String host = childText(element, "host");
+            String port = childText(element, "port");
+            int portNumber;
+            try {
+                portNumber = port != null ? Integer.parseInt(port) : 8080;
+            } catch (NumberFormatException e) {
+                Logger.warn("Ignoring the proxy " + host + " of the Maven settings, its port " + port
+                        + " is not a number");
+                continue;
+            }
+            Proxy proxy = new Proxy(
+                    childText(element, "protocol"),
+                    host,
+                    portNumber,
+                    childText(element, "username"),
+                    childText(element, "password"),
+                    childText(element, "nonProxyHosts"));
+            if (proxy.host != null && (active == null || Boolean.parseBoolean(active))) {
+                proxies.add(proxy);
+            }
+        }
+        for (Element element : children(root, "servers", "server")) {
+            servers.add(new Server(
+                    childText(element, "id"), childText(element, "username"), childText(element, "password")));
+        }
+    }
+
+    /**
+     * @return the local repository of the settings, or {@code null}
+     */
+    public String getLocalRepository() {
+        return localRepository;
+    }
+
+    /**
+     * Returns the local repository Maven uses: the {@code maven.repo.local} system property, else the local repository
+     * of the settings, else the {@code repository} directory of the Maven user home.
+     *
+     * @param mavenUserHome the Maven user home
+     * @return the local repository
+     */
+    public Path getLocalRepository(Path mavenUserHome) {
+        String path = System.getProperty(MAVEN_REPO_LOCAL_PROPERTY);
+        if (path == null || path.trim().isEmpty()) {
+            path = localRepository;
+        }
+        return path == null || path.isEmpty() ? mavenUserHome.resolve("repository") : Paths.get(path);
+    }
+
+    /**
+     * Returns the mirror of a repository, like Maven: a mirror of that very id, else the first mirror with a matching
+     * {@code mirrorOf} pattern.
+     *
+     * @param repositoryId the id of the repository
+     * @param repositoryUrl the URL of the repository
+     * @return the mirror, or {@code null} if the repository is not mirrored
+     */
+    public Mirror getMirror(String repositoryId, String repositoryUrl) {
+        for (Mirror mirror : mirrors) {
+            if (mirror.mirrorOf.equals(repositoryId)) {
+                return mirror;
+            }
+        }
+        for (Mirror mirror : mirrors) {
+            if (mirror.matches(repositoryId, repositoryUrl)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the first active proxy for a protocol that does not exclude a host.
+     *
+     * @param protocol the protocol, {@code http} or {@code https}
+     * @param host the host to connect to
+     * @return the proxy, or {@code null} if none applies
+     */
+    public Proxy getProxy(String protocol, String host) {
+        for (Proxy proxy : proxies) {
+            if (protocol.equalsIgnoreCase(proxy.protocol) && !proxy.isNonProxyHost(host)) {
+                return proxy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the active proxy listening on a host and port.
+     *
+     * @param host the host of the proxy
+     * @param port the port of the proxy
+     * @return the proxy, or {@code null} if there is no such proxy
+     */
+    public Proxy getProxy(String host, int port) {
+        for (Proxy proxy : proxies) {
+            if (proxy.host.equalsIgnoreCase(host) && proxy.port == port) {
+                return proxy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether an active proxy needs authentication
+     */
+    public boolean hasProxyCredentials() {
+        for (Proxy proxy : proxies) {
+            if (proxy.username != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param id the id of the server
+     * @return the server, or {@code null} if there is no server with that id
+     */
+    public Server getServer(String id) {
+        for (Server server : servers) {
+            if (id != null && id.equals(server.id)) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    private static String plainPassword(String password) {
+        return password != null && password.startsWith("{") && password.endsWith("}") ? null : password;
+    }
+
+    private static List<Element> children(Element root, String listName, String name) {
+        List<Element> children = new ArrayList<>();
+        for (Node list = root.getFirstChild(); list != null; list = list.getNextSibling()) {
+            if (list instanceof Element && listName.equals(list.getNodeName())) {
+                for (Node node = list.getFirstChild(); node != null; node = node.getNextSibling()) {
+                    if (node instanceof Element && name.equals(node.getNodeName())) {
+                        children.add((Element) node);
+                    }
+                }
+            }
+        }
+        return children;
+    }
+
+    static String childText(Element parent, String name) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNextSibling()) {
+            if (node instanceof Element && name.equals(node.getNodeName())) {
+                return interpolate(node.getTextContent().trim());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Replaces {@code ${env.NAME}} expressions by environment variables, and other expressions by system properties.
+     */
+    static String interpolate(String value) {
+        Matcher matcher = EXPRESSION.matcher(value);
+        StringBuffer result = new StringBuffer();
+        while (matcher.find()) {
+            String expression = matcher.group(1);
+            String replacement = expression.startsWith("env.")
+                    ? System.getenv(expression.substring(4))
+                    : System.getProperty(expression);
+            matcher.appendReplacement(
+                    result, Matcher.quoteReplacement(replacement != null ? replacement : matcher.group()));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    /**
+     * A {@code <mirror>} of the settings.
+     */
+    public static class Mirror {
+        private final String id;
+
+        private final String url;
+
+        private final String mirrorOf;
+
+        Mirror(String id, String url, String mirrorOf) {
+            this.id = id;
+            this.url = url;
+            this.mirrorOf = mirrorOf;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        /**
+         * Matches {@code mirrorOf} patterns like Maven: comma separated ids, {@code *}, {@code external:*},
+         * {@code external:http:*} and {@code !id} exclusions.
+         */
+        boolean matches(String repositoryId, String repositoryUrl) {
+            boolean matches = false;
+            for (String pattern : mirrorOf.split(",")) {
+                pattern = pattern.trim();
+                if (pattern.equals("!" + repositoryId)) {
+                    return false;
+                } else if (pattern.equals(repositoryId) || pattern.equals("*")) {
+                    matches = true;
+                } else if (pattern.equals("external:*")) {
+                    matches |= isExternal(repositoryUrl);
+                } else if (pattern.equals("external:http:*")) {
+                    matches |= isExternal(repositoryUrl) && repositoryUrl.startsWith("http:");
+                }
+            }
+            return matches;
+        }
+
+        private static boolean isExternal(String repositoryUrl) {
+            try {
+                String host = new URI(repositoryUrl).getHost();
+                return host != null && !host.equals("localhost") && !host.equals("127.0.0.1");
+            } catch (URISyntaxException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * An active {@code <proxy>} of the settings.
+     */
+    public static class Proxy {
+        private final String protocol;
+
+        private final String host;
+
+        private final int port;
+
+        private final String username;
+
+        private final String password;
+
+        private final String nonProxyHosts;
+
+        Proxy(String protocol, String host, int port, String username, String password, String nonProxyHosts) {
+            this.protocol = protocol != null ? protocol : "http";
+            this.host = host;
+            this.port = port;
+            this.username = username;
+            this.password = password;
+            this.nonProxyHosts = nonProxyHosts;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public int getPort() {
+            return port;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * @return the password, or {@code null} if it is encrypted, which needs Maven to decrypt
+         */
+        public String getPassword() {
+            return plainPassword(password);
+        }
+
+        boolean isNonProxyHost(String host) {
+            if (nonProxyHosts == null || host == null) {
+                return false;
+            }
+            for (String pattern : nonProxyHosts.split("[|,]")) {
+                // only * is a wildcard, the rest of the pattern is literal
+                String[] segments = pattern.trim().toLowerCase(Locale.ROOT).split("\\*", -1);
+                StringBuilder regex = new StringBuilder();
+                for (int i = 0; i < segments.length; i++) {
+                    if (i > 0) {
+                        regex.append(".*");
+                    }
+                    if (!segments[i].isEmpty()) {
+                        regex.append(Pattern.quote(segments[i]));
+                    }
+                }
+                if (regex.length() > 0 && host.toLowerCase(Locale.ROOT).matches(regex.toString())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A {@code <server>} of the settings.
+     */
+    public static class Server {
+        private final String id;
+
+        private final String username;
+
+        private final String password;
+
+        Server(String id, String username, String password) {
+            this.id = id;
+            this.username = username;
+            this.password = password;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        /**
+         * @return the password, or {@code null} if it is encrypted, which needs Maven to decrypt
+         */
+        public String getPassword() {
+            return plainPassword(password);
+        }
+    }
+}
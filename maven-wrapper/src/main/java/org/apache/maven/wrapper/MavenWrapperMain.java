@@ -22,8 +22,11 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
@@ -56,7 +59,29 @@ public class MavenWrapperMain {
 
     public static final String MVNW_REPOURL = "MVNW_REPOURL";
 
+    public static final String MVNW_BATCH = "MVNW_BATCH";
+
+    /**
+     * Set for the background process revalidating a snapshot distribution, which only downloads it.
+     */
+    static final String MVNW_REVALIDATE = "MVNW_REVALIDATE";
+
+    /**
+     * System properties passed on to the background revalidation process, which reads the {@code maven.properties}
+     * files itself. Passwords are left out of its command line.
+     */
+    private static final String[] REVALIDATION_PROPERTIES = {
+        MAVEN_USER_HOME_PROPERTY_KEY,
+        MavenSettings.MAVEN_REPO_LOCAL_PROPERTY,
+        "http.proxyHost",
+        "http.proxyPort",
+        "http.nonProxyHosts",
+        "https.proxyHost",
+        "https.proxyPort"
+    };
+
     public static void main(String[] args) throws Exception {
+        long configureStart = System.nanoTime();
         Path wrapperJar = wrapperJar();
         Path propertiesFile = wrapperProperties(wrapperJar);
         Path rootDir = rootDir(wrapperJar);
@@ -70,13 +95,89 @@ public class MavenWrapperMain {
         addSystemProperties(rootDir);
 
         WrapperExecutor wrapperExecutor = WrapperExecutor.forWrapperPropertiesFile(propertiesFile);
-        wrapperExecutor.execute(
-                args,
-                new Installer(
-                        new DefaultDownloader("mvnw", wrapperVersion),
-                        new HashAlgorithmVerifier(),
-                        new PathAssembler(mavenUserHome())),
-                new BootstrapMainStarter());
+        WrapperConfiguration configuration = wrapperExecutor.getConfiguration();
+        Path localRepository = null;
+        if (configuration.isUseLocalRepository() || configuration.isIncrementalInstall()) {
+            MavenSettings settings = MavenSettings.read(mavenUserHome().resolve("settings.xml"));
+            localRepository = settings.getLocalRepository(mavenUserHome());
+        }
+        long configureEnd = System.nanoTime();
+        List<InstallListener> listeners = new ArrayList<>();
+        listeners.add(InstallListener.load(MavenWrapperMain.class.getClassLoader()));
+        listeners.add(TraceWriter.fromEnvironment(configureStart));
+        listeners.add(MetricsWriter.fromEnvironment(mavenUserHome(), configureStart));
+        InstallListener listener = InstallListener.compose(listeners);
+        if (listener != null) {
+            listener.started(InstallListener.Phase.CONFIGURE, propertiesFile.toString(), configureStart);
+            listener.ended(InstallListener.Phase.CONFIGURE, propertiesFile.toString(), -1, null, configureEnd);
+        }
+        DefaultDownloader defaultDownloader = new DefaultDownloader("mvnw", wrapperVersion);
+        defaultDownloader.setSettingsFile(mavenUserHome().resolve("settings.xml"));
+        defaultDownloader.setInstallListener(listener);
+        Downloader downloader = defaultDownloader;
+        if (configuration.isUseLocalRepository()) {
+            downloader = new LocalRepositoryDownloader(downloader, localRepository);
+        }
+        Installer installer = new Installer(
+                downloader,
+                new HashAlgorithmVerifier(mavenUserHome().resolve("wrapper/checksums")),
+                new PathAssembler(mavenUserHome()));
+        installer.setLocalRepository(localRepository);
+        installer.setBackgroundRevalidation(() -> startRevalidation(wrapperJar, rootDir));
+        installer.setInstallListener(listener);
+        if (configuration.isPrefetchExtensions()) {
+            installer.setExtensionsPrefetcher(new ExtensionsPrefetcher(
+                    downloader,
+                    rootDir.resolve(ExtensionsPrefetcher.EXTENSIONS_FILE),
+                    mavenUserHome().resolve("settings.xml"),
+                    mavenUserHome()));
+        }
+
+        if (Boolean.parseBoolean(System.getenv(MVNW_REVALIDATE))) {
+            installer.revalidate(configuration);
+            return;
+        }
+
+        BootstrapMainStarter starter = new BootstrapMainStarter();
+        starter.setInstallListener(listener);
+        String batchFile = System.getenv(MVNW_BATCH);
+        if (batchFile != null && !batchFile.isEmpty()) {
+            BatchFile batch = BatchFile.read(batchFile, args);
+            System.exit(wrapperExecutor.executeBatch(batch, installer, starter));
+        }
+        wrapperExecutor.execute(args, installer, starter);
+    }
+
+    /**
+     * Starts a process downloading the distribution again, which outlives this one.
+     */
+    private static void startRevalidation(Path wrapperJar, Path rootDir) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String key : REVALIDATION_PROPERTIES) {
+            if (System.getProperty(key) != null) {
+                command.add("-D" + key + "=" + System.getProperty(key));
+            }
+        }
+        command.add("-cp");
+        command.add(wrapperJar.toString());
+        command.add(MavenWrapperMain.class.getName());
+        Path logFile = mavenUserHome().resolve("wrapper/revalidate.log");
+        try {
+            Files.createDirectories(logFile.getParent());
+            ProcessBuilder builder = new ProcessBuilder(command)
+                    .directory(rootDir.toFile())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.appendTo(logFile.toFile()));
+            builder.environment().put(MVNW_REVALIDATE, "true");
+            builder.environment().remove(MVNW_BATCH);
+            // the revalidation outlives this run, it must not add to its trace nor to the metrics of runs
+            builder.environment().remove(TraceWriter.MVNW_TRACE);
+            builder.environment().remove(MetricsWriter.MVNW_METRICS);
+            builder.start();
+        } catch (IOException e) {
+            Logger.warn("Could not start the background revalidation: " + e.getMessage());
+        }
     }
 
     private static Map<String, String> parseSystemPropertiesFromArgs(String[] args) {
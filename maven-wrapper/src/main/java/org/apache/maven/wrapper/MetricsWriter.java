@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Install listener aggregating the runs of the wrapper into counters and histograms, written in the Prometheus text
+ * format to a file the textfile collector of the Prometheus node exporter scrapes. The file is updated under a lock at
+ * the end of each run, and replaced atomically so that it is never read half written.
+ */
+class MetricsWriter implements InstallListener {
+    static final String MVNW_METRICS = "MVNW_METRICS";
+
+    static final String METRICS_PROPERTY = "mvnw.metrics";
+
+    static final String METRICS_FILE = "mvnw.prom";
+
+    /** Upper bounds of the histogram buckets, in seconds. */
+    private static final double[] BUCKETS = {0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60, 120, 300};
+
+    private static final String[] CACHED_PHASES = {"download", "extract"};
+
+    // counters are typed with their _total suffix, as the node exporter parses the Prometheus text format
+    private static final String[][] COUNTERS = {
+        {"mvnw_runs_total", "Runs of the wrapper launching Maven."},
+        {"mvnw_cache_hits_total", "Phases skipped as their result was already there, by phase."},
+        {"mvnw_cache_misses_total", "Phases run as their result was not there yet, by phase."},
+        {"mvnw_download_bytes_total", "Bytes downloaded by the wrapper."},
+        {"mvnw_download_failures_total", "Failed downloads."},
+        {"mvnw_verify_seconds_total", "Time spent verifying archives and installations."},
+        {"mvnw_verify_failures_total", "Failed verifications."},
+        {"mvnw_install_failures_total", "Failed installations of a distribution."}
+    };
+
+    private static final String[][] HISTOGRAMS = {
+        {"mvnw_download_seconds", "Duration of the downloads of distributions."},
+        {"mvnw_extract_seconds", "Duration of the extractions of distributions."},
+        {"mvnw_warm_start_seconds", "Time from the start of the wrapper to launching an installed distribution."}
+    };
+
+    private final Path file;
+
+    private final long mainNanoTime;
+
+    /** Start times and threads of the running phases, by phase and subject, as ranges are downloaded concurrently. */
+    private final Map<String, List<long[]>> starts = new HashMap<>();
+
+    /** Increments of the samples not written yet, by name and labels. */
+    private final Map<String, Double> increments = new HashMap<>();
+
+    private boolean installing;
+
+    private boolean launched;
+
+    /**
+     * @param file the file to aggregate the metrics in
+     * @param mainNanoTime when the wrapper started running, the start of the warm start overhead
+     */
+    MetricsWriter(Path file, long mainNanoTime) {
+        this.file = file;
+        this.mainNanoTime = mainNanoTime;
+    }
+
+    /**
+     * @param mavenUserHome the Maven user home, holding the file in its {@code wrapper} directory
+     * @param mainNanoTime when the wrapper started running
+     * @return the writer, if the {@code MVNW_METRICS} environment variable or the {@code mvnw.metrics} system property
+     *         is {@code true}, or {@code null}
+     */
+    static MetricsWriter fromEnvironment(Path mavenUserHome, long mainNanoTime) {
+        if (!Boolean.parseBoolean(System.getProperty(METRICS_PROPERTY, System.getenv(MVNW_METRICS)))) {
+            return null;
+        }
+        return new MetricsWriter(mavenUserHome.resolve("wrapper").resolve(METRICS_FILE), mainNanoTime);
+    }
+
+    @Override
+    public synchronized void started(Phase phase, String subject, long nanoTime) {
+        starts.computeIfAbsent(phase + " " + subject, key -> new ArrayList<>())
+                .add(new long[] {nanoTime, Thread.currentThread().getId()});
+    }
+
+    @Override
+    public void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {
+        boolean flush;
+        synchronized (this) {
+            long[] start = removeStart(phase + " " + subject);
+            double seconds = start == null ? 0 : (nanoTime - start[0]) / 1e9;
+            flush = record(phase, subject, bytes, failure, seconds, nanoTime);
+        }
+        if (flush) {
+            flush();
+        }
+    }
+
+    /**
+     * Removes the phase started by this thread, or else the oldest one, ended on another thread.
+     */
+    private long[] removeStart(String key) {
+        List<long[]> phaseStarts = starts.get(key);
+        if (phaseStarts == null) {
+            return null;
+        }
+        int index = 0;
+        for (int i = 0; i < phaseStarts.size(); i++) {
+            if (phaseStarts.get(i)[1] == Thread.currentThread().getId()) {
+                index = i;
+                break;
+            }
+        }
+        long[] start = phaseStarts.remove(index);
+        if (phaseStarts.isEmpty()) {
+            starts.remove(key);
+        }
+        return start;
+    }
+
+    private boolean record(Phase phase, String subject, long bytes, Throwable failure, double seconds, long nanoTime) {
+        switch (phase) {
+            case DOWNLOAD:
+                if (failure != null) {
+                    increment("mvnw_download_failures_total", 1);
+                    return false;
+                }
+                increment("mvnw_download_bytes_total", Math.max(0, bytes));
+                if (isArchive(subject)) {
+                    installing = true;
+                    increment("mvnw_cache_misses_total{phase=\"download\"}", 1);
+                    observe("mvnw_download_seconds", seconds);
+                }
+                return false;
+            case EXTRACT:
+                installing = true;
+                if (failure == null) {
+                    increment("mvnw_cache_misses_total{phase=\"extract\"}", 1);
+                    observe("mvnw_extract_seconds", seconds);
+                }
+                return false;
+            case VERIFY:
+                increment("mvnw_verify_seconds_total", seconds);
+                if (failure != null) {
+                    increment("mvnw_verify_failures_total", 1);
+                }
+                return false;
+            case INSTALL:
+                if (failure != null) {
+                    increment("mvnw_install_failures_total", 1);
+                }
+                return failure != null;
+            case LAUNCH:
+                increment("mvnw_runs_total", 1);
+                // only the first launch of a batch follows the start of the wrapper
+                if (!installing && !launched && failure == null) {
+                    observe("mvnw_warm_start_seconds", (nanoTime - mainNanoTime) / 1e9);
+                }
+                launched = true;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public synchronized void cached(Phase phase, String subject, long nanoTime) {
+        if (phase == Phase.DOWNLOAD && isArchive(subject)) {
+            increment("mvnw_cache_hits_total{phase=\"download\"}", 1);
+        } else if (phase == Phase.EXTRACT) {
+            increment("mvnw_cache_hits_total{phase=\"extract\"}", 1);
+        }
+    }
+
+    /**
+     * Tells whether a download is the one of a distribution, and not of a checksum or an extension.
+     */
+    private static boolean isArchive(String subject) {
+        return subject.endsWith(".zip") || subject.endsWith(".tar.gz");
+    }
+
+    private void increment(String sample, double value) {
+        increments.merge(sample, value, Double::sum);
+    }
+
+    private void observe(String histogram, double seconds) {
+        for (double bucket : BUCKETS) {
+            if (seconds <= bucket) {
+                increment(histogram + "_bucket{le=\"" + bucket + "\"}", 1);
+            }
+        }
+        increment(histogram + "_bucket{le=\"+Inf\"}", 1);
+        increment(histogram + "_sum", seconds);
+        increment(histogram + "_count", 1);
+    }
+
+    /**
+     * Adds the increments recorded since the last call to the file.
+     */
+    synchronized void flush() {
+        if (increments.isEmpty()) {
+            return;
+        }
+        Path lockFile = file.resolveSibling(file.getFileName() + ".lock");
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel lockChannel =
+                    FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                FileLock lock = lockChannel.lock();
+                try {
+                    write(file);
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.warn("Could not write the metrics to " + file + ": " + e);
+        }
+        increments.clear();
+    }
+
+    /**
+     * Replaces the file with its samples plus the increments, the caller holding the lock.
+     */
+    private void write(Path file) throws IOException {
+        Map<String, Double> values = read(file);
+        increments.forEach((sample, value) -> values.merge(sample, value, Double::sum));
+        // the temporary file does not end with .prom, the collector ignores it
+        Path tmpFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmpFile, format(values).getBytes(StandardCharsets.UTF_8));
+            try {
+                Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    /**
+     * @return the samples of the file by name and labels, zero for the ones it does not have
+     */
+    static Map<String, Double> read(Path file) throws IOException {
+        Map<String, Double> values = new LinkedHashMap<>();
+        for (String[] counter : COUNTERS) {
+            if (counter[0].equals("mvnw_cache_hits_total") || counter[0].equals("mvnw_cache_misses_total")) {
+                for (String phase : CACHED_PHASES) {
+                    values.put(counter[0] + "{phase=\"" + phase + "\"}", 0.0);
+                }
+            } else {
+                values.put(counter[0], 0.0);
+            }
+        }
+        for (String[] histogram : HISTOGRAMS) {
+            for (double bucket : BUCKETS) {
+                values.put(histogram[0] + "_bucket{le=\"" + bucket + "\"}", 0.0);
+            }
+            values.put(histogram[0] + "_bucket{le=\"+Inf\"}", 0.0);
+            values.put(histogram[0] + "_sum", 0.0);
+            values.put(histogram[0] + "_count", 0.0);
+        }
+        if (!Files.isRegularFile(file)) {
+            return values;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            int index = line.lastIndexOf(' ');
+            if (line.startsWith("#") || index < 0 || !values.containsKey(line.substring(0, index))) {
+                continue;
+            }
+            try {
+                values.put(line.substring(0, index), Double.parseDouble(line.substring(index + 1)));
+            } catch (NumberFormatException e) {
+                Logger.warn("Ignoring the invalid sample " + line + " of " + file);
+            }
+        }
+        return values;
+    }
+
+    private static String format(Map<String, Double> values) {
+        StringBuilder text = new StringBuilder();
+        for (String[] counter : COUNTERS) {
+            family(text, counter, "counter", values);
+        }
+        for (String[] histogram : HISTOGRAMS) {
+            family(text, histogram, "histogram", values);
+        }
+        return text.toString();
+    }
+
+    private static void family(StringBuilder text, String[] family, String type, Map<String, Double> values) {
+        text.append("# TYPE ").append(family[0]).append(' ').append(type).append('\n');
+        text.append("# HELP ").append(family[0]).append(' ').append(family[1]).append('\n');
+        values.forEach((sample, value) -> {
+            String suffix = sample.startsWith(family[0]) ? sample.substring(family[0].length()) : null;
+            if (suffix != null && (suffix.isEmpty() || suffix.startsWith("{") || suffix.startsWith("_"))) {
+                double rounded = Math.rint(value);
+                text.append(sample)
+                        .append(' ')
+                        .append(rounded == value ? Long.toString((long) rounded) : Double.toString(value))
+                        .append('\n');
+            }
+        });
+    }
+}
@@ -58,6 +58,16 @@ public class PathAssembler {
         return new LocalDistribution(distDir, distZip);
     }
 
+    /**
+     * Determines the directory holding the distributions installed with the supplied configuration's base and path.
+     *
+     * @param configuration a wrapper configuration
+     * @return the directory of the installed distributions
+     */
+    public Path getDistributionsDir(WrapperConfiguration configuration) {
+        return getBaseDir(configuration.getDistributionBase()).resolve(configuration.getDistributionPath());
+    }
+
     private Path rootDirName(String distName, WrapperConfiguration configuration) {
         String urlHash = getHash(configuration.getDistribution());
         return Paths.get(distName, urlHash);
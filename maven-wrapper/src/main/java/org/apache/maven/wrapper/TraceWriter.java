@@ -0,0 +1,247 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Install listener writing the phases as Chrome trace events, in the JSON array format read by Perfetto and
+ * {@code chrome://tracing}. Events are appended one per line, so that the scripts launching the wrapper trace their own
+ * phases to the same file, and the closing bracket, which the format allows to omit, is never written. Timestamps are
+ * in microseconds since the epoch, like the ones of the scripts.
+ */
+class TraceWriter implements InstallListener {
+    static final String MVNW_TRACE = "MVNW_TRACE";
+
+    static final String TRACE_PROPERTY = "mvnw.trace";
+
+    private static final String CATEGORY = "maven-wrapper";
+
+    private final Path file;
+
+    private final FileChannel channel;
+
+    private final long pid;
+
+    private final long epochOffsetMicros;
+
+    /**
+     * Start time and thread of the phases in progress, by phase and subject. Concurrent downloads of ranges of an
+     * archive share their phase and subject.
+     */
+    private final Map<String, List<long[]>> starts = new ConcurrentHashMap<>();
+
+    private final Set<Long> namedThreads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean failed;
+
+    /**
+     * @param file the file to append the events to
+     * @param mainNanoTime when the wrapper started running, the end of the JVM startup
+     */
+    TraceWriter(Path file, long mainNanoTime) throws IOException {
+        this.file = file;
+        this.epochOffsetMicros = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+        this.channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        this.pid = pid(runtime.getName());
+        if (channel.size() == 0) {
+            write("[\n");
+        }
+        complete("JVM_STARTUP", "", runtime.getStartTime() * 1000, micros(mainNanoTime), Thread.currentThread(), "");
+    }
+
+    /**
+     * @param mainNanoTime when the wrapper started running, the end of the JVM startup
+     * @return the writer to the file given by the {@code MVNW_TRACE} environment variable or the {@code mvnw.trace}
+     *         system property, or {@code null} if none is, or the file cannot be written
+     */
+    static TraceWriter fromEnvironment(long mainNanoTime) {
+        String file = System.getProperty(TRACE_PROPERTY, System.getenv(MVNW_TRACE));
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        try {
+            return new TraceWriter(Paths.get(file), mainNanoTime);
+        } catch (IOException | RuntimeException e) {
+            Logger.warn("Could not write the trace to " + file + ": " + e);
+            return null;
+        }
+    }
+
+    @Override
+    public void started(Phase phase, String subject, long nanoTime) {
+        long[] start = {nanoTime, Thread.currentThread().getId()};
+        starts.compute(key(phase, subject), (key, phaseStarts) -> {
+            List<long[]> list = phaseStarts != null ? phaseStarts : new ArrayList<>();
+            list.add(start);
+            return list;
+        });
+    }
+
+    @Override
+    public void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {
+        long[][] ended = new long[1][];
+        starts.computeIfPresent(key(phase, subject), (key, phaseStarts) -> {
+            // the phase started by this thread, or else the oldest one, ended on another thread
+            int index = 0;
+            for (int i = 0; i < phaseStarts.size(); i++) {
+                if (phaseStarts.get(i)[1] == Thread.currentThread().getId()) {
+                    index = i;
+                    break;
+                }
+            }
+            ended[0] = phaseStarts.remove(index);
+            return phaseStarts.isEmpty() ? null : phaseStarts;
+        });
+        long[] start = ended[0];
+        if (start == null) {
+            return;
+        }
+        StringBuilder args = new StringBuilder();
+        if (bytes >= 0) {
+            args.append(",\"bytes\":").append(bytes);
+        }
+        if (failure != null) {
+            args.append(",\"failure\":\"").append(escape(failure.toString())).append('"');
+        }
+        Thread thread = Thread.currentThread().getId() == start[1] ? Thread.currentThread() : null;
+        complete(phase.name(), subject, micros(start[0]), micros(nanoTime), thread, start[1], args.toString());
+    }
+
+    @Override
+    public void cached(Phase phase, String subject, long nanoTime) {
+        Thread thread = Thread.currentThread();
+        nameThread(thread);
+        event(String.format(
+                Locale.ROOT,
+                "{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":%d,\"tid\":%d,"
+                        + "\"args\":{\"subject\":\"%s\",\"cacheHit\":true}}",
+                phase.name(),
+                CATEGORY,
+                micros(nanoTime),
+                pid,
+                thread.getId(),
+                escape(subject)));
+    }
+
+    private void complete(String name, String subject, long startMicros, long endMicros, Thread thread, String args) {
+        complete(name, subject, startMicros, endMicros, thread, thread.getId(), args);
+    }
+
+    private void complete(
+            String name, String subject, long startMicros, long endMicros, Thread thread, long tid, String args) {
+        if (thread != null) {
+            nameThread(thread);
+        }
+        event(String.format(
+                Locale.ROOT,
+                "{\"name\":\"%s\",\"cat\":\"%s\",\"ph\":\"X\",\"ts\":%d,\"dur\":%d,\"pid\":%d,\"tid\":%d,"
+                        + "\"args\":{\"subject\":\"%s\"%s}}",
+                name,
+                CATEGORY,
+                startMicros,
+                Math.max(0, endMicros - startMicros),
+                pid,
+                tid,
+                escape(subject),
+                args));
+    }
+
+    private void nameThread(Thread thread) {
+        if (namedThreads.add(thread.getId())) {
+            event(String.format(
+                    Locale.ROOT,
+                    "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":%d,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                    pid,
+                    thread.getId(),
+                    escape(thread.getName())));
+        }
+    }
+
+    private void event(String event) {
+        write(event + ",\n");
+    }
+
+    private void write(String text) {
+        if (failed) {
+            return;
+        }
+        // a single write per event, as the file is shared with the scripts and any concurrent run
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        try {
+            synchronized (channel) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        } catch (IOException e) {
+            failed = true;
+            Logger.warn("Could not write the trace to " + file + ": " + e);
+        }
+    }
+
+    private long micros(long nanoTime) {
+        return epochOffsetMicros + nanoTime / 1000;
+    }
+
+    private static String key(Phase phase, String subject) {
+        return phase.name() + ' ' + subject;
+    }
+
+    private static long pid(String runtimeName) {
+        // the name is pid@hostname on the usual JVMs, the pid of the scripts executing the JVM
+        int index = runtimeName.indexOf('@');
+        try {
+            return Long.parseLong(index < 0 ? runtimeName : runtimeName.substring(0, index));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
@@ -29,5 +29,18 @@ public interface Verifier {
 
     String SHA_256_ALGORITHM = "SHA-256";
 
+    String SHA_512_ALGORITHM = "SHA-512";
+
     void verify(Path file, String property, String algorithm, String expectedSum) throws Exception;
+
+    /**
+     * Records the sum of a file computed elsewhere, e.g. while downloading it, so that verifying the unchanged file
+     * later does not need to hash it again. Does nothing by default.
+     *
+     * @param file the file
+     * @param algorithm the algorithm of the sum
+     * @param sum the sum, in lower case hex notation
+     * @throws Exception if the sum cannot be recorded
+     */
+    default void record(Path file, String algorithm, String sum) throws Exception {}
 }
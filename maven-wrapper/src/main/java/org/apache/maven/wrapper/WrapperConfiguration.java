@@ -20,6 +20,8 @@ package org.apache.maven.wrapper;
 
 import java.net.URI;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
 
 /**
  * Wrapper configuration.
@@ -29,10 +31,44 @@ public class WrapperConfiguration {
 
     public static final String ALWAYS_DOWNLOAD_ENV = "MAVEN_WRAPPER_ALWAYS_DOWNLOAD";
 
+    public static final String LAUNCH_FROM_ARCHIVE_ENV = "MAVEN_WRAPPER_LAUNCH_FROM_ARCHIVE";
+
+    public static final String VALIDATE_INSTALLATION_ENV = "MAVEN_WRAPPER_VALIDATE_INSTALLATION";
+
+    public static final String FETCH_DISTRIBUTION_CHECKSUM_ENV = "MAVEN_WRAPPER_FETCH_DISTRIBUTION_CHECKSUM";
+
+    public static final String USE_LOCAL_REPOSITORY_ENV = "MAVEN_WRAPPER_USE_LOCAL_REPOSITORY";
+
+    public static final String INCREMENTAL_INSTALL_ENV = "MAVEN_WRAPPER_INCREMENTAL_INSTALL";
+
+    public static final String PREFETCH_EXTENSIONS_ENV = "MAVEN_WRAPPER_PREFETCH_EXTENSIONS";
+
+    public static final String STALE_WHILE_REVALIDATE_ENV = "MAVEN_WRAPPER_STALE_WHILE_REVALIDATE";
+
+    public static final String MAX_STALENESS_ENV = "MAVEN_WRAPPER_MAX_STALENESS";
+
+    public static final Duration DEFAULT_MAX_STALENESS = Duration.ofDays(1);
+
     private boolean alwaysUnpack = Boolean.parseBoolean(System.getenv(ALWAYS_UNPACK_ENV));
 
     private boolean alwaysDownload = Boolean.parseBoolean(System.getenv(ALWAYS_DOWNLOAD_ENV));
 
+    private boolean launchFromArchive = Boolean.parseBoolean(System.getenv(LAUNCH_FROM_ARCHIVE_ENV));
+
+    private boolean validateInstallation = Boolean.parseBoolean(System.getenv(VALIDATE_INSTALLATION_ENV));
+
+    private boolean fetchDistributionChecksum = Boolean.parseBoolean(System.getenv(FETCH_DISTRIBUTION_CHECKSUM_ENV));
+
+    private boolean useLocalRepository = Boolean.parseBoolean(System.getenv(USE_LOCAL_REPOSITORY_ENV));
+
+    private boolean incrementalInstall = Boolean.parseBoolean(System.getenv(INCREMENTAL_INSTALL_ENV));
+
+    private boolean prefetchExtensions = Boolean.parseBoolean(System.getenv(PREFETCH_EXTENSIONS_ENV));
+
+    private boolean staleWhileRevalidate = Boolean.parseBoolean(System.getenv(STALE_WHILE_REVALIDATE_ENV));
+
+    private Duration maxStaleness = maxStalenessFromEnvironment();
+
     private URI distribution;
 
     private String distributionBase = PathAssembler.MAVEN_USER_HOME_STRING;
@@ -61,6 +97,92 @@ public class WrapperConfiguration {
         this.alwaysUnpack = alwaysUnpack;
     }
 
+    public boolean isLaunchFromArchive() {
+        return launchFromArchive;
+    }
+
+    public void setLaunchFromArchive(boolean launchFromArchive) {
+        this.launchFromArchive = launchFromArchive;
+    }
+
+    public boolean isValidateInstallation() {
+        return validateInstallation;
+    }
+
+    public void setValidateInstallation(boolean validateInstallation) {
+        this.validateInstallation = validateInstallation;
+    }
+
+    public boolean isFetchDistributionChecksum() {
+        return fetchDistributionChecksum;
+    }
+
+    public void setFetchDistributionChecksum(boolean fetchDistributionChecksum) {
+        this.fetchDistributionChecksum = fetchDistributionChecksum;
+    }
+
+    public boolean isUseLocalRepository() {
+        return useLocalRepository;
+    }
+
+    public void setUseLocalRepository(boolean useLocalRepository) {
+        this.useLocalRepository = useLocalRepository;
+    }
+
+    public boolean isIncrementalInstall() {
+        return incrementalInstall;
+    }
+
+    public void setIncrementalInstall(boolean incrementalInstall) {
+        this.incrementalInstall = incrementalInstall;
+    }
+
+    public boolean isPrefetchExtensions() {
+        return prefetchExtensions;
+    }
+
+    public void setPrefetchExtensions(boolean prefetchExtensions) {
+        this.prefetchExtensions = prefetchExtensions;
+    }
+
+    public boolean isStaleWhileRevalidate() {
+        return staleWhileRevalidate;
+    }
+
+    public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+        this.staleWhileRevalidate = staleWhileRevalidate;
+    }
+
+    private static Duration maxStalenessFromEnvironment() {
+        return parseMaxStaleness(MAX_STALENESS_ENV, System.getenv(MAX_STALENESS_ENV), DEFAULT_MAX_STALENESS);
+    }
+
+    /**
+     * @param name the name of the setting, for the warning
+     * @param value the ISO-8601 duration, or {@code null}
+     * @param defaultValue the duration kept when the value is missing or invalid
+     * @return the maximum staleness
+     */
+    static Duration parseMaxStaleness(String name, String value, Duration defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Duration.parse(value);
+        } catch (DateTimeParseException e) {
+            Logger.warn("Ignoring the invalid " + name + " " + value + ", expected an ISO-8601 duration like PT12H");
+            return defaultValue;
+        }
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
     public URI getDistribution() {
         return distribution;
     }
@@ -53,12 +53,31 @@ public class WrapperExecutor {
 
     public static final String ALWAYS_UNPACK = "alwaysUnpack";
 
+    public static final String LAUNCH_FROM_ARCHIVE = "launchFromArchive";
+
+    public static final String VALIDATE_INSTALLATION = "validateInstallation";
+
+    public static final String FETCH_DISTRIBUTION_CHECKSUM = "fetchDistributionChecksum";
+
+    public static final String USE_LOCAL_REPOSITORY = "useLocalRepository";
+
+    public static final String INCREMENTAL_INSTALL = "incrementalInstall";
+
+    public static final String PREFETCH_EXTENSIONS = "prefetchExtensions";
+
+    public static final String STALE_WHILE_REVALIDATE = "staleWhileRevalidate";
+
+    public static final String MAX_STALENESS = "maxStaleness";
+
     private final Properties properties;
 
     private final Path propertiesFile;
 
     private final WrapperConfiguration config = new WrapperConfiguration();
 
+    /** The platform of the Maven Daemon distribution replacing the generic one, if any. */
+    private String mvndPlatform;
+
     public static WrapperExecutor forProjectDirectory(Path projectDir) {
         return new WrapperExecutor(projectDir.resolve("maven/wrapper/maven-wrapper.properties"), new Properties());
     }
@@ -84,9 +103,31 @@ public class WrapperExecutor {
                 config.setZipBase(getProperty(ZIP_STORE_BASE_PROPERTY, config.getZipBase()));
                 config.setZipPath(Paths.get(
                         getProperty(ZIP_STORE_PATH_PROPERTY, config.getZipPath().toString())));
-                config.setDistributionSha256Sum(getProperty(DISTRIBUTION_SHA_256_SUM, ""));
+                String distributionSha256Sum = getProperty(DISTRIBUTION_SHA_256_SUM, "");
+                if (mvndPlatform != null) {
+                    // each platform has its own archive, hence its own checksum
+                    distributionSha256Sum =
+                            getProperty(DISTRIBUTION_SHA_256_SUM + "." + mvndPlatform, distributionSha256Sum);
+                }
+                config.setDistributionSha256Sum(distributionSha256Sum);
                 config.setAlwaysUnpack(Boolean.parseBoolean(getProperty(ALWAYS_UNPACK, Boolean.FALSE.toString())));
                 config.setAlwaysDownload(Boolean.parseBoolean(getProperty(ALWAYS_DOWNLOAD, Boolean.FALSE.toString())));
+                config.setLaunchFromArchive(Boolean.parseBoolean(
+                        getProperty(LAUNCH_FROM_ARCHIVE, String.valueOf(config.isLaunchFromArchive()))));
+                config.setValidateInstallation(Boolean.parseBoolean(
+                        getProperty(VALIDATE_INSTALLATION, String.valueOf(config.isValidateInstallation()))));
+                config.setFetchDistributionChecksum(Boolean.parseBoolean(getProperty(
+                        FETCH_DISTRIBUTION_CHECKSUM, String.valueOf(config.isFetchDistributionChecksum()))));
+                config.setUseLocalRepository(Boolean.parseBoolean(
+                        getProperty(USE_LOCAL_REPOSITORY, String.valueOf(config.isUseLocalRepository()))));
+                config.setIncrementalInstall(Boolean.parseBoolean(
+                        getProperty(INCREMENTAL_INSTALL, String.valueOf(config.isIncrementalInstall()))));
+                config.setPrefetchExtensions(Boolean.parseBoolean(
+                        getProperty(PREFETCH_EXTENSIONS, String.valueOf(config.isPrefetchExtensions()))));
+                config.setStaleWhileRevalidate(Boolean.parseBoolean(
+                        getProperty(STALE_WHILE_REVALIDATE, String.valueOf(config.isStaleWhileRevalidate()))));
+                config.setMaxStaleness(WrapperConfiguration.parseMaxStaleness(
+                        MAX_STALENESS, properties.getProperty(MAX_STALENESS), config.getMaxStaleness()));
             } catch (Exception e) {
                 throw new RuntimeException(
                         String.format(Locale.ROOT, "Could not load wrapper properties from '%s'.", propertiesFile), e);
@@ -98,8 +139,37 @@ public class WrapperExecutor {
         return System.getenv(key);
     }
 
+    /**
+     * Returns the platform of the native Maven Daemon distribution to use on this system, or {@code null} if there is
+     * none and the pure Java client must be used.
+     *
+     * @return the mvnd platform classifier, e.g. {@code linux-amd64}
+     */
+    protected String getMvndPlatform() {
+        return detectMvndPlatform();
+    }
+
+    /**
+     * @return the mvnd platform classifier of this system, or {@code null} if mvnd has no native client for it
+     */
+    static String detectMvndPlatform() {
+        String osName = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        String osArch = System.getProperty("os.arch", "").toLowerCase(Locale.ROOT);
+        boolean amd64 = osArch.equals("amd64") || osArch.equals("x86_64");
+        if (osName.startsWith("windows") && amd64) {
+            return "windows-amd64";
+        } else if (osName.startsWith("mac") && amd64) {
+            return "darwin-amd64";
+        } else if (osName.startsWith("mac") && osArch.equals("aarch64")) {
+            return "darwin-aarch64";
+        } else if (osName.startsWith("linux") && amd64) {
+            return "linux-amd64";
+        }
+        return null;
+    }
+
     private URI prepareDistributionUri() throws URISyntaxException {
-        URI source = readDistroUrl();
+        URI source = selectMvndPlatform(readDistroUrl());
         if (source.getScheme() == null) {
             // no scheme means someone passed a relative url. In our context only file relative urls make sense.
             return propertiesFile
@@ -114,7 +184,7 @@ public class WrapperExecutor {
                     mvnwRepoUrl = mvnwRepoUrl.substring(0, mvnwRepoUrl.length() - 1);
                 }
                 String distributionPath = source.getPath();
-                int index = distributionPath.indexOf("org/apache/maven");
+                int index = distributionPath.indexOf(isMvnd(source) ? "maven/mvnd/" : "org/apache/maven");
                 if (index > 1) {
                     distributionPath = "/".concat(distributionPath.substring(index));
                 } else {
@@ -127,6 +197,31 @@ public class WrapperExecutor {
         }
     }
 
+    /**
+     * Replaces the generic {@code maven-mvnd-<version>-bin.zip} distribution, which mvnd does not publish, by the
+     * native one for this platform, like {@code only-mvnw} does, so the Maven Daemon client starts without a JVM. On
+     * other platforms the {@code linux-amd64} one is used, its {@code bin/mvnd.sh} pure Java client being launched.
+     */
+    private URI selectMvndPlatform(URI source) throws URISyntaxException {
+        String url = source.toString();
+        if (!isMvnd(source) || !url.endsWith("-bin.zip")) {
+            return source;
+        }
+        String platform = getMvndPlatform();
+        if (platform == null) {
+            Logger.warn("Cannot detect native platform for mvnd on " + System.getProperty("os.name") + "-"
+                    + System.getProperty("os.arch") + ", using pure java version");
+            platform = "linux-amd64";
+        }
+        mvndPlatform = platform;
+        return new URI(url.substring(0, url.length() - "bin.zip".length()) + platform + ".zip");
+    }
+
+    static boolean isMvnd(URI distribution) {
+        String path = distribution.getPath() != null ? distribution.getPath() : distribution.getSchemeSpecificPart();
+        return path.substring(path.lastIndexOf('/') + 1).startsWith("maven-mvnd-");
+    }
+
     private URI readDistroUrl() throws URISyntaxException {
         return new URI(getProperty(DISTRIBUTION_URL_PROPERTY));
     }
@@ -161,6 +256,12 @@ public class WrapperExecutor {
         bootstrapMainStarter.start(args, mavenHome);
     }
 
+    public int executeBatch(BatchFile batch, Installer install, BootstrapMainStarter bootstrapMainStarter)
+            throws Exception {
+        Path mavenHome = install.createDist(config);
+        return bootstrapMainStarter.startBatch(batch, mavenHome);
+    }
+
     private String getProperty(String propertyName) {
         return getProperty(propertyName, null);
     }
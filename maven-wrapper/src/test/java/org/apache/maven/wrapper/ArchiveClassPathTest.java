@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ArchiveClassPathTest {
+    @TempDir
+    private File tempFolder;
+
+    private Path archive;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        archive = tempFolder.toPath().resolve("maven-0.9-bin.zip");
+        try (OutputStream os = Files.newOutputStream(archive);
+                ZipOutputStream zip = new ZipOutputStream(os)) {
+            zip.putNextEntry(new ZipEntry("maven-0.9/bin/m2.conf"));
+            zip.write("main is Main from plexus.core".getBytes(StandardCharsets.UTF_8));
+            zip.putNextEntry(new ZipEntry("maven-0.9/lib/maven-core-0.9.jar"));
+            zip.write(jar("META-INF/maven/core.txt", "core"));
+            zip.putNextEntry(new ZipEntry("maven-0.9/lib/maven-model-0.9.jar"));
+            zip.write(jar("org/apache/maven/model.txt", "model"));
+            zip.putNextEntry(new ZipEntry("maven-0.9/lib/ext/extension.jar"));
+            zip.write(jar("extension.txt", "extension"));
+            zip.closeEntry();
+        }
+    }
+
+    @Test
+    void findMatchesFileNamePatternOnly() throws Exception {
+        try (ArchiveClassPath classPath = new ArchiveClassPath(archive)) {
+            List<URL> urls = classPath.find("maven-0.9/lib/maven-*.jar");
+            assertEquals(2, urls.size());
+            assertEquals("mvnw-archive:/maven-0.9/lib/maven-core-0.9.jar!/", urls.get(0).toString());
+            assertEquals("mvnw-archive:/maven-0.9/lib/maven-model-0.9.jar!/", urls.get(1).toString());
+            assertEquals(1, classPath.find("maven-0.9/lib/ext/*.jar").size());
+            assertEquals(0, classPath.find("maven-0.9/boot/*.jar").size());
+        }
+    }
+
+    @Test
+    void resourcesAreServedFromNestedJars() throws Exception {
+        try (ArchiveClassPath classPath = new ArchiveClassPath(archive);
+                URLClassLoader loader = new URLClassLoader(
+                        classPath.find("maven-0.9/lib/*.jar").toArray(new URL[0]), null)) {
+            assertEquals("core", read(loader.getResource("META-INF/maven/core.txt")));
+            assertEquals("model", read(loader.getResource("org/apache/maven/model.txt")));
+            assertNull(loader.getResource("extension.txt"));
+            assertNull(loader.getResource("org/apache/maven/missing.txt"));
+            assertNotNull(loader.getResources("org/apache/maven/model.txt").nextElement());
+        }
+    }
+
+    private static byte[] jar(String name, String content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream jar = new ZipOutputStream(bytes)) {
+            jar.putNextEntry(new ZipEntry(name));
+            jar.write(content.getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String read(URL url) throws IOException {
+        assertNotNull(url);
+        try (InputStream in = url.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[256];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchFileTest {
+    @TempDir
+    private File tempFolder;
+
+    @Test
+    void splitsArgumentsWithQuotes() {
+        assertEquals(
+                Arrays.asList("-pl", "core", "-Dname=a b", "it's", ""),
+                BatchFile.split("  -pl core  -Dname=\"a b\" \"it's\" ''"));
+        assertThrows(IllegalArgumentException.class, () -> BatchFile.split("-Dname=\"a b"));
+    }
+
+    @Test
+    void readsInvocationsWithCommonArguments() throws Exception {
+        Path file = tempFolder.toPath().resolve("batch");
+        Files.write(
+                file,
+                Arrays.asList("# comment", "validate", "", "  -pl core install  "),
+                StandardCharsets.UTF_8);
+
+        BatchFile batch = BatchFile.read(file.toString(), new String[] {"-B"});
+
+        assertEquals(Arrays.asList("validate", "-pl core install"), batch.getLines());
+        assertEquals(2, batch.getInvocations().size());
+        assertArrayEquals(new String[] {"-B", "validate"}, batch.getInvocations().get(0));
+        assertArrayEquals(new String[] {"-B", "-pl", "core", "install"}, batch.getInvocations().get(1));
+    }
+}
@@ -20,11 +20,17 @@ package org.apache.maven.wrapper;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.net.InetSocketAddress;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpServer;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -61,6 +67,64 @@ class DownloaderTest {
         sourceRoot = remoteFile.toUri();
     }
 
+    @Test
+    void testDownloadFromCentralMirror() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        List<String> requests = new ArrayList<>();
+        server.createContext("/mirror/", exchange -> {
+            requests.add(exchange.getRequestURI().getPath() + " "
+                    + exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = "mirrored".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            Path settingsFile = testDir.resolve("settings.xml");
+            Files.write(
+                    settingsFile,
+                    ("<settings><mirrors><mirror><id>dc</id><mirrorOf>central</mirrorOf><url>http://localhost:"
+                                    + server.getAddress().getPort() + "/mirror</url></mirror></mirrors>"
+                                    + "<servers><server><id>dc</id><username>u</username><password>p</password>"
+                                    + "</server></servers></settings>")
+                            .getBytes(StandardCharsets.UTF_8));
+            download.setSettingsFile(settingsFile);
+
+            download.download(new URI("https://repo.maven.apache.org/maven2/org/apache/maven/file"), downloadFile);
+
+            assertEquals("mirrored", new String(Files.readAllBytes(downloadFile), StandardCharsets.UTF_8));
+            assertEquals(Arrays.asList("/mirror/org/apache/maven/file Basic dTpw"), requests);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void testDownloadNotifyingListener() throws Exception {
+        List<String> events = new ArrayList<>();
+        download.setInstallListener(new InstallListener() {
+            @Override
+            public void started(Phase phase, String subject, long nanoTime) {
+                events.add("started " + phase);
+            }
+
+            @Override
+            public void progress(Phase phase, String subject, long bytes, long totalBytes, long nanoTime) {
+                events.add("progress " + phase + " " + bytes + "/" + totalBytes);
+            }
+
+            @Override
+            public void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {
+                events.add("ended " + phase + " " + bytes + " " + failure);
+            }
+        });
+
+        download.download(sourceRoot, downloadFile);
+
+        assertEquals(Arrays.asList("started DOWNLOAD", "progress DOWNLOAD 8/8", "ended DOWNLOAD 8 null"), events);
+    }
+
     @Test
     void testDownload() throws Exception {
         assertTrue(Files.notExists(downloadFile));
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class ExtensionsPrefetcherTest {
+    @TempDir
+    private File tempFolder;
+
+    private Path extensionsFile;
+
+    private Downloader download;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        extensionsFile = tempFolder.toPath().resolve(ExtensionsPrefetcher.EXTENSIONS_FILE);
+        Files.createDirectories(extensionsFile.getParent());
+        Files.write(
+                extensionsFile,
+                ("<extensions>\n"
+                                + "  <extension><groupId>org.example</groupId><artifactId>good</artifactId>"
+                                + "<version>1.0</version></extension>\n"
+                                + "  <extension><groupId>org.example</groupId><artifactId>bad</artifactId>"
+                                + "<version>1.0</version></extension>\n"
+                                + "  <extension><groupId>org.example</groupId><artifactId>interpolated</artifactId>"
+                                + "<version>${revision}</version></extension>\n"
+                                + "</extensions>\n")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        download = mock(Downloader.class);
+        doAnswer(invocation -> {
+                    URI address = invocation.getArgument(0);
+                    Path destination = invocation.getArgument(1);
+                    String path = address.getPath();
+                    String content = path.substring(0, path.length() - ".sha1".length());
+                    if (!path.endsWith(".sha1")) {
+                        content = path;
+                    } else if (!content.contains("/bad/")) {
+                        content = FileDigester.toHex(
+                                MessageDigest.getInstance("SHA-1").digest(content.getBytes(StandardCharsets.UTF_8)));
+                    }
+                    Files.createDirectories(destination.getParent());
+                    Files.write(destination, content.getBytes(StandardCharsets.UTF_8));
+                    return null;
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+    }
+
+    @Test
+    void prefetchesExtensionsIntoLocalRepository() throws Exception {
+        Path mavenUserHome = tempFolder.toPath().resolve("m2");
+        ExtensionsPrefetcher prefetcher = new ExtensionsPrefetcher(
+                download, extensionsFile, mavenUserHome.resolve("settings.xml"), mavenUserHome);
+
+        prefetcher.start();
+        prefetcher.await(10000);
+
+        Path good = mavenUserHome.resolve("repository/org/example/good/1.0");
+        assertTrue(Files.exists(good.resolve("good-1.0.jar")));
+        assertTrue(Files.exists(good.resolve("good-1.0.pom")));
+        assertTrue(Files.exists(good.resolve("good-1.0.jar.sha1")));
+        String record = new String(Files.readAllBytes(good.resolve("_remote.repositories")), StandardCharsets.UTF_8);
+        assertTrue(record.contains("good-1.0.jar>central="));
+        assertTrue(record.contains("good-1.0.pom>central="));
+
+        Path bad = mavenUserHome.resolve("repository/org/example/bad/1.0");
+        assertFalse(Files.exists(bad.resolve("bad-1.0.pom")));
+        assertFalse(Files.exists(bad.resolve("bad-1.0.jar")));
+        try (Stream<Path> files = Files.list(bad)) {
+            assertEquals(0, files.count());
+        }
+        assertFalse(Files.exists(mavenUserHome.resolve("repository/org/example/interpolated")));
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FileDigesterTest {
+    @TempDir
+    private File tempFolder;
+
+    @Test
+    void digestsWithSeveralAlgorithmsInOnePass() throws Exception {
+        byte[] content = new byte[200_000];
+        Arrays.fill(content, (byte) 'x');
+        Path file = tempFolder.toPath().resolve("file");
+        Files.write(file, content);
+
+        FileDigester digester = new FileDigester(Verifier.SHA_256_ALGORITHM, Verifier.SHA_512_ALGORITHM);
+        byte[][] hashes = digester.digest(file);
+
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(content), hashes[0]);
+        assertArrayEquals(MessageDigest.getInstance("SHA-512").digest(content), hashes[1]);
+        // the digester can be reused
+        assertArrayEquals(hashes[0], digester.digest(file)[0]);
+    }
+
+    @Test
+    void convertsHexNotation() {
+        String sum = "7e0c63c6a99639e57cc64375d6717d72e301d8ab829fef2e145ee860317bc3cb";
+        byte[] hash = FileDigester.fromHex(sum);
+
+        assertEquals(32, hash.length);
+        assertEquals(sum, FileDigester.toHex(hash));
+        assertArrayEquals(hash, FileDigester.fromHex(sum.toUpperCase()));
+        assertNull(FileDigester.fromHex("7e0"));
+        assertNull(FileDigester.fromHex("7g"));
+        assertEquals("", FileDigester.toHex("".getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -23,12 +23,16 @@ import java.io.File;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 public class HashAlgorithmVerifierTest {
@@ -74,4 +78,47 @@ public class HashAlgorithmVerifierTest {
                     e.getMessage());
         }
     }
+
+    @Test
+    void unchangedFileIsNotHashedAgain() throws Exception {
+        FileTime lastModified = FileTime.fromMillis(System.currentTimeMillis() - 60_000);
+        Files.setLastModifiedTime(file, lastModified);
+        HashAlgorithmVerifier cachingVerifier =
+                new HashAlgorithmVerifier(temporaryFolder.toPath().resolve("checksums"));
+        cachingVerifier.setStrict(false);
+        String sum = "7e0c63c6a99639e57cc64375d6717d72e301d8ab829fef2e145ee860317bc3cb";
+        cachingVerifier.verify(file, "property", Verifier.SHA_256_ALGORITHM, sum);
+
+        // same size and modification time: the recorded verification is trusted
+        Files.write(file, "Sample file with CONTENT".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(file, lastModified);
+        cachingVerifier.verify(file, "property", Verifier.SHA_256_ALGORITHM, sum);
+
+        cachingVerifier.setStrict(true);
+        assertThrows(
+                RuntimeException.class,
+                () -> cachingVerifier.verify(file, "property", Verifier.SHA_256_ALGORITHM, sum));
+
+        cachingVerifier.setStrict(false);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() - 1000));
+        assertThrows(
+                RuntimeException.class,
+                () -> cachingVerifier.verify(file, "property", Verifier.SHA_256_ALGORITHM, sum));
+    }
+
+    @Test
+    void recentlyModifiedFileIsNotRecorded() throws Exception {
+        Path checksums = temporaryFolder.toPath().resolve("checksums");
+        HashAlgorithmVerifier cachingVerifier = new HashAlgorithmVerifier(checksums);
+        cachingVerifier.setStrict(false);
+        String sum = "7e0c63c6a99639e57cc64375d6717d72e301d8ab829fef2e145ee860317bc3cb";
+
+        // could still change within the modification time granularity
+        cachingVerifier.record(file, Verifier.SHA_256_ALGORITHM, sum);
+        assertFalse(Files.exists(checksums));
+
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        cachingVerifier.record(file, Verifier.SHA_256_ALGORITHM, sum);
+        assertTrue(Files.exists(checksums));
+    }
 }
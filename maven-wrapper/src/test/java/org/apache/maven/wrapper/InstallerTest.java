@@ -26,6 +26,7 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -33,6 +34,17 @@ import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
@@ -43,11 +55,22 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -209,6 +232,357 @@ public class InstallerTest {
         // verify(download).download(new URI("http://some/test"), distributionDir);
     }
 
+    @Test
+    void testCreateDistLaunchingFromArchive() throws Exception {
+        createTestZip(zipDestination);
+        configuration.setLaunchFromArchive(true);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertEquals(mavenHomeDir, homeDir);
+        assertTrue(Files.exists(homeDir.resolve("bin/mvn")));
+        assertFalse(Files.exists(homeDir.resolve("lib/maven-core-0.9.jar")));
+        assertEquals(
+                zipDestination.toAbsolutePath().toString(),
+                new String(Files.readAllBytes(homeDir.resolve(Installer.ARCHIVE_FILE)), StandardCharsets.UTF_8));
+
+        configuration.setLaunchFromArchive(false);
+
+        homeDir = install.createDist(configuration);
+
+        assertTrue(Files.exists(homeDir.resolve("lib/maven-core-0.9.jar")));
+        assertFalse(Files.exists(homeDir.resolve(Installer.ARCHIVE_FILE)));
+    }
+
+    @Test
+    void testCreateDistRepairingModifiedFiles() throws Exception {
+        createTestZip(zipDestination);
+        configuration.setValidateInstallation(true);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertTrue(Files.exists(distributionDir.resolve(InstallManifest.MANIFEST_FILE)));
+        Files.write(homeDir.resolve("bin/mvn"), "tampered".getBytes(StandardCharsets.UTF_8));
+        Files.delete(homeDir.resolve("lib/maven-core-0.9.jar"));
+        Files.write(homeDir.resolve("garbage"), new byte[0]);
+        Files.write(homeDir.resolve("lib/injected.jar"), new byte[0]);
+        Files.createDirectories(homeDir.resolve("lib/ext"));
+        Files.write(homeDir.resolve("lib/ext/extension.jar"), new byte[0]);
+
+        homeDir = install.createDist(configuration);
+
+        assertEquals(mavenHomeDir, homeDir);
+        assertEquals("something", new String(Files.readAllBytes(homeDir.resolve("bin/mvn")), StandardCharsets.UTF_8));
+        assertTrue(Files.exists(homeDir.resolve("lib/maven-core-0.9.jar")));
+        // files not coming from the distribution are removed, but for the core extensions
+        assertFalse(Files.exists(homeDir.resolve("garbage")));
+        assertFalse(Files.exists(homeDir.resolve("lib/injected.jar")));
+        assertTrue(Files.exists(homeDir.resolve("lib/ext/extension.jar")));
+        assertEquals(0, InstallManifest.read(distributionDir).validate(distributionDir, zipDestination));
+    }
+
+    @Test
+    void testCreateDistUnpackingWithCorruptManifest() throws Exception {
+        createTestZip(zipDestination);
+        configuration.setValidateInstallation(true);
+
+        Path homeDir = install.createDist(configuration);
+        Files.write(
+                distributionDir.resolve(InstallManifest.MANIFEST_FILE), "corrupt\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(homeDir.resolve("bin/mvn"), "tampered".getBytes(StandardCharsets.UTF_8));
+
+        assertNull(InstallManifest.read(distributionDir));
+
+        homeDir = install.createDist(configuration);
+
+        assertEquals("something", new String(Files.readAllBytes(homeDir.resolve("bin/mvn")), StandardCharsets.UTF_8));
+        assertEquals(0, InstallManifest.read(distributionDir).validate(distributionDir, zipDestination));
+    }
+
+    @Test
+    void testCreateDistKeepingModificationTimeOfLocalRepositoryArchive() throws Exception {
+        Path localRepository = testDir.resolve("repository");
+        Path artifact = localRepository.resolve("org/apache/maven/apache-maven/0.9/maven-0.9.zip");
+        createTestZip(artifact);
+        FileTime lastModified = Files.getLastModifiedTime(artifact);
+        configuration.setDistribution(new URI("https://server/maven2/org/apache/maven/apache-maven/0.9/maven-0.9.zip"));
+        configuration.setDistributionSha256Sum(
+                FileDigester.toHex(new FileDigester(Verifier.SHA_256_ALGORITHM).digest(artifact)[0]));
+        install = new Installer(new LocalRepositoryDownloader(download, localRepository), verifier, pathAssembler);
+
+        install.createDist(configuration);
+
+        assertTrue(Files.exists(mavenHomeDir.resolve("bin/mvn")));
+        assertEquals(lastModified, Files.getLastModifiedTime(artifact));
+        verify(download, never()).download(any(URI.class), any(Path.class), any(FileDigester.class));
+    }
+
+    @Test
+    void testCreateDistFetchingPublishedChecksum() throws Exception {
+        Path remoteZip = testDir.resolve("remote/maven-0.9.zip");
+        createTestZip(remoteZip);
+        // older than the modification time granularity, or the verification is not recorded
+        Files.setLastModifiedTime(remoteZip, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        String sha512Sum = FileDigester.toHex(new FileDigester(Verifier.SHA_512_ALGORITHM).digest(remoteZip)[0]);
+        Files.write(
+                remoteZip.resolveSibling("maven-0.9.zip.sha512"),
+                (sha512Sum + "  maven-0.9.zip\n").getBytes(StandardCharsets.UTF_8));
+        configuration.setDistribution(remoteZip.toUri());
+        configuration.setFetchDistributionChecksum(true);
+        HashAlgorithmVerifier hashVerifier = new HashAlgorithmVerifier(testDir.resolve("checksums"));
+        install = new Installer(new DefaultDownloader("mvnw", "aVersion"), hashVerifier, pathAssembler);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertTrue(Files.exists(homeDir.resolve("bin/mvn")));
+        try (DirectoryStream<Path> records = Files.newDirectoryStream(testDir.resolve("checksums"))) {
+            Path record = records.iterator().next();
+            String content = new String(Files.readAllBytes(record), StandardCharsets.UTF_8);
+            assertTrue(content.contains("SHA-512=" + sha512Sum));
+        }
+
+        Files.write(
+                remoteZip.resolveSibling("maven-0.9.zip.sha512"),
+                sha512Sum.replace('0', '1').getBytes(StandardCharsets.UTF_8));
+        configuration.setAlwaysDownload(true);
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> install.createDist(configuration));
+        assertTrue(e.getMessage().startsWith("Failed to validate Maven distribution SHA-512"));
+        assertFalse(Files.exists(zipDestination.resolveSibling("maven-0.9.zip.part")));
+    }
+
+    @Test
+    void testCreateDistRevalidatingSnapshotInBackground() throws Exception {
+        Path remoteZip = testDir.resolve("remote/maven-0.9.zip");
+        createTestZip(remoteZip);
+        doAnswer(invocation -> {
+                    Path destination = invocation.getArgument(1);
+                    Files.createDirectories(destination.getParent());
+                    return Files.copy(remoteZip, destination);
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+        configuration.setDistribution(new URI("http://server/maven-0.9-SNAPSHOT.zip"));
+        configuration.setAlwaysDownload(true);
+        configuration.setStaleWhileRevalidate(true);
+        AtomicInteger revalidations = new AtomicInteger();
+        install.setBackgroundRevalidation(revalidations::incrementAndGet);
+
+        // nothing installed yet: blocking download
+        Path homeDir = install.createDist(configuration);
+        verify(download, times(1)).download(any(URI.class), any(Path.class));
+        assertEquals(0, revalidations.get());
+
+        // installed: launch it and revalidate in the background
+        homeDir = install.createDist(configuration);
+        verify(download, times(1)).download(any(URI.class), any(Path.class));
+        assertEquals(1, revalidations.get());
+
+        // a newer snapshot downloaded in the background is installed by the next run
+        Files.write(testDir.resolve("explodedZip/maven-0.9/bin/mvn"), "newer".getBytes(StandardCharsets.UTF_8));
+        zipTo(testDir.resolve("explodedZip"), remoteZip);
+        install.revalidate(configuration);
+        homeDir = install.createDist(configuration);
+        assertEquals("newer", new String(Files.readAllBytes(homeDir.resolve("bin/mvn")), StandardCharsets.UTF_8));
+        assertEquals(2, revalidations.get());
+
+        // an unchanged snapshot is discarded
+        install.revalidate(configuration);
+        assertFalse(Files.exists(zipDestination.resolveSibling("maven-0.9.zip.next")));
+
+        // too stale: blocking download
+        configuration.setMaxStaleness(Duration.ZERO);
+        Thread.sleep(10);
+        install.createDist(configuration);
+        verify(download, times(4)).download(any(URI.class), any(Path.class));
+        assertEquals(2, revalidations.get());
+    }
+
+    @Test
+    void testCreateDistUnzippingLocalArchive() throws Exception {
+        Path sharedZip = testDir.resolve("share/maven-0.9.zip");
+        createTestZip(sharedZip);
+        configuration.setDistribution(sharedZip.toUri());
+        configuration.setLaunchFromArchive(true);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertEquals(mavenHomeDir, homeDir);
+        assertTrue(Files.exists(homeDir.resolve("bin/mvn")));
+        assertEquals(
+                sharedZip.toAbsolutePath().toString(),
+                new String(Files.readAllBytes(homeDir.resolve(Installer.ARCHIVE_FILE)), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(zipDestination));
+        verify(download, never()).download(any(URI.class), any(Path.class));
+    }
+
+    @Test
+    void testCreateDistDownloadingFileUriWithHost() throws Exception {
+        Path sharedZip = testDir.resolve("share/maven-0.9.zip");
+        createTestZip(sharedZip);
+        doAnswer(invocation -> {
+                    Path destination = invocation.getArgument(1);
+                    Files.createDirectories(destination.getParent());
+                    return Files.copy(sharedZip, destination);
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+        URI distributionUrl = new URI("file://host/share/maven-0.9.zip");
+        configuration.setDistribution(distributionUrl);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertTrue(Files.exists(homeDir.resolve("bin/mvn")));
+        if (!System.getProperty("os.name").startsWith("Windows")) {
+            verify(download).download(eq(distributionUrl), any(Path.class));
+        }
+    }
+
+    @Test
+    void testCreateDistAssemblingFromLocalFiles() throws Exception {
+        Path remoteZip = testDir.resolve("remote/maven-0.9.zip");
+        createTestZip(remoteZip);
+        Path localRepository = testDir.resolve("repository");
+        Path artifact = localRepository.resolve("org/apache/maven/maven-core/0.9/maven-core-0.9.jar");
+        Files.createDirectories(artifact.getParent());
+        Files.copy(testDir.resolve("explodedZip/maven-0.9/lib/maven-core-0.9.jar"), artifact);
+        when(pathAssembler.getDistributionsDir(configuration)).thenReturn(testDir.resolve("dists"));
+        when(download.downloadRange(any(URI.class), anyLong(), anyInt())).thenAnswer(invocation -> {
+            byte[] zip = Files.readAllBytes(remoteZip);
+            long offset = invocation.getArgument(1);
+            int length = invocation.getArgument(2);
+            int start = offset < 0 ? Math.max(0, zip.length - length) : (int) offset;
+            return Arrays.copyOfRange(zip, start, Math.min(zip.length, start + length));
+        });
+        configuration.setIncrementalInstall(true);
+        install.setLocalRepository(localRepository);
+
+        Path homeDir = install.createDist(configuration);
+
+        assertEquals(mavenHomeDir, homeDir);
+        assertEquals("something", new String(Files.readAllBytes(homeDir.resolve("bin/mvn")), StandardCharsets.UTF_8));
+        assertArrayEquals(Files.readAllBytes(artifact), Files.readAllBytes(homeDir.resolve("lib/maven-core-0.9.jar")));
+        assertFalse(Files.exists(zipDestination));
+        // the central directory, then bin/mvn
+        verify(download, times(2)).downloadRange(any(URI.class), anyLong(), anyInt());
+
+        homeDir = install.createDist(configuration);
+
+        assertEquals(mavenHomeDir, homeDir);
+        verify(download, times(2)).downloadRange(any(URI.class), anyLong(), anyInt());
+        verify(download, never()).download(any(URI.class), any(Path.class));
+    }
+
+    @Test
+    void testCreateDistAsyncSharingConcurrentInstallations() throws Exception {
+        Path remoteZip = testDir.resolve("remote/maven-0.9.zip");
+        createTestZip(remoteZip);
+        CountDownLatch downloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+                    downloading.countDown();
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                    Path destination = invocation.getArgument(1);
+                    Files.createDirectories(destination.getParent());
+                    Files.copy(remoteZip, destination);
+                    return null;
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            CompletableFuture<Path> first = install.createDistAsync(configuration, executor);
+            assertTrue(downloading.await(10, TimeUnit.SECONDS));
+            CompletableFuture<Path> second = install.createDistAsync(configuration, executor);
+            assertFalse(second.isDone());
+            release.countDown();
+
+            assertEquals(mavenHomeDir, first.get(10, TimeUnit.SECONDS));
+            assertEquals(mavenHomeDir, second.get(10, TimeUnit.SECONDS));
+            verify(download, times(1)).download(any(URI.class), any(Path.class));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testCreateDistAsyncFailing() throws Exception {
+        doAnswer(invocation -> {
+                    throw new IOException("unreachable");
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+
+        ExecutionException e = assertThrows(
+                ExecutionException.class,
+                () -> install.createDistAsync(configuration).get(10, TimeUnit.SECONDS));
+        assertEquals("unreachable", e.getCause().getMessage());
+
+        // a failed installation is not shared with later calls
+        IOException again = assertThrows(IOException.class, () -> install.createDist(configuration));
+        assertEquals("unreachable", again.getMessage());
+        verify(download, times(2)).download(any(URI.class), any(Path.class));
+    }
+
+    @Test
+    void testCreateDistCancellingExtensionsPrefetchOnFailure() throws Exception {
+        doAnswer(invocation -> {
+                    throw new IOException("unreachable");
+                })
+                .when(download)
+                .download(any(URI.class), any(Path.class));
+        ExtensionsPrefetcher prefetcher = mock(ExtensionsPrefetcher.class);
+        install.setExtensionsPrefetcher(prefetcher);
+
+        assertThrows(IOException.class, () -> install.createDist(configuration));
+        verify(prefetcher).start();
+        verify(prefetcher).cancel();
+        verify(prefetcher, never()).await(anyLong());
+
+        createTestZip(zipDestination);
+        install.createDist(configuration);
+        verify(prefetcher).await(anyLong());
+    }
+
+    @Test
+    void testCreateDistNotifyingListener() throws Exception {
+        createTestZip(zipDestination);
+        configuration.setDistributionSha256Sum("01234567");
+        List<String> events = new ArrayList<>();
+        install.setInstallListener(new InstallListener() {
+            @Override
+            public void started(Phase phase, String subject, long nanoTime) {
+                events.add("started " + phase + " " + subject);
+            }
+
+            @Override
+            public void ended(Phase phase, String subject, long bytes, Throwable failure, long nanoTime) {
+                events.add("ended " + phase + " " + subject + " " + bytes);
+            }
+
+            @Override
+            public void cached(Phase phase, String subject, long nanoTime) {
+                events.add("cached " + phase + " " + subject);
+            }
+        });
+
+        install.createDist(configuration);
+
+        long size = Files.size(zipDestination);
+        assertEquals(
+                Arrays.asList(
+                        "started RESOLVE http://server/maven-0.9.zip",
+                        "ended RESOLVE http://server/maven-0.9.zip -1",
+                        "started INSTALL " + distributionDir,
+                        "cached DOWNLOAD http://server/maven-0.9.zip",
+                        "started VERIFY " + zipDestination,
+                        "ended VERIFY " + zipDestination + " " + size,
+                        "started EXTRACT " + zipDestination,
+                        "ended EXTRACT " + zipDestination + " " + size,
+                        "ended INSTALL " + distributionDir + " -1"),
+                events);
+    }
+
     @Test
     void testZipSlip() throws URISyntaxException {
         URL resource = getClass().getClassLoader().getResource("zip-slip.zip");
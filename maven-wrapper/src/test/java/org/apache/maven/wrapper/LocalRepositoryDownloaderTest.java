@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LocalRepositoryDownloaderTest {
+    private static final String ARCHIVE = "org/apache/maven/apache-maven/3.9.9/apache-maven-3.9.9-bin.zip";
+
+    @TempDir
+    private File tempFolder;
+
+    private Path localRepository;
+
+    private Downloader delegate;
+
+    private LocalRepositoryDownloader downloader;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        localRepository = tempFolder.toPath().resolve("repository");
+        Path artifact = localRepository.resolve(ARCHIVE);
+        Files.createDirectories(artifact.getParent());
+        Files.write(artifact, "archive".getBytes(StandardCharsets.UTF_8));
+        Files.write(artifact.resolveSibling(artifact.getFileName() + ".sha512"), new byte[0]);
+        delegate = mock(Downloader.class);
+        downloader = new LocalRepositoryDownloader(delegate, localRepository);
+    }
+
+    @Test
+    void takesArchiveFromLocalRepository() throws Exception {
+        URI address = new URI("https://repo/maven2/" + ARCHIVE);
+        Path destination = tempFolder.toPath().resolve("dists/apache-maven-3.9.9-bin.zip");
+
+        FileDigester digester = new FileDigester(Verifier.SHA_256_ALGORITHM);
+        byte[][] hashes = downloader.download(address, destination, digester);
+
+        assertEquals("archive", new String(Files.readAllBytes(destination), StandardCharsets.UTF_8));
+        assertArrayEquals(new FileDigester(Verifier.SHA_256_ALGORITHM).digest(destination)[0], hashes[0]);
+        verify(delegate, never()).download(address, destination);
+    }
+
+    @Test
+    void delegatesOtherFiles() throws Exception {
+        Path destination = tempFolder.toPath().resolve("dists/file");
+
+        URI checksum = new URI("https://repo/maven2/" + ARCHIVE + ".sha512");
+        downloader.download(checksum, destination);
+        verify(delegate).download(checksum, destination);
+
+        URI missing = new URI("https://repo/maven2/org/apache/maven/apache-maven/3.9.8/apache-maven-3.9.8-bin.zip");
+        downloader.download(missing, destination);
+        verify(delegate).download(missing, destination);
+    }
+
+    @Test
+    void downloadsSnapshots() throws Exception {
+        String snapshot = "org/apache/maven/apache-maven/4.0.0-SNAPSHOT/apache-maven-4.0.0-SNAPSHOT-bin.zip";
+        Files.createDirectories(localRepository.resolve(snapshot).getParent());
+        Files.write(localRepository.resolve(snapshot), "old snapshot".getBytes(StandardCharsets.UTF_8));
+        URI address = new URI("https://repo/maven2/" + snapshot);
+        Path destination = tempFolder.toPath().resolve("dists/apache-maven-4.0.0-SNAPSHOT-bin.zip");
+
+        downloader.download(address, destination);
+
+        verify(delegate).download(address, destination);
+    }
+}
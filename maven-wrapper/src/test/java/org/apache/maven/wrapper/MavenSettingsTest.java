@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MavenSettingsTest {
+    @TempDir
+    private File tempFolder;
+
+    @Test
+    void readsLocalRepository() throws Exception {
+        Path settingsFile = tempFolder.toPath().resolve("settings.xml");
+        Files.write(
+                settingsFile,
+                ("<settings xmlns=\"http://maven.apache.org/SETTINGS/1.0.0\">\n"
+                                + "  <localRepository>${user.home}/repo/${unknown}</localRepository>\n"
+                                + "</settings>\n")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        MavenSettings settings = MavenSettings.read(settingsFile);
+
+        assertEquals(System.getProperty("user.home") + "/repo/${unknown}", settings.getLocalRepository());
+        assertEquals(
+                Paths.get(settings.getLocalRepository()), settings.getLocalRepository(tempFolder.toPath()));
+    }
+
+    @Test
+    void readsMirrorsProxiesAndServers() throws Exception {
+        Path settingsFile = tempFolder.toPath().resolve("settings.xml");
+        Files.write(
+                settingsFile,
+                ("<settings>\n"
+                                + "  <mirrors>\n"
+                                + "    <mirror><id>all</id><url>https://all/</url>"
+                                + "<mirrorOf>*,!snapshots</mirrorOf></mirror>\n"
+                                + "    <mirror><id>dc</id><url>https://dc/</url><mirrorOf>central</mirrorOf></mirror>\n"
+                                + "  </mirrors>\n"
+                                + "  <proxies>\n"
+                                + "    <proxy><active>false</active><host>inactive</host></proxy>\n"
+                                + "    <proxy><host>proxy</host><port>3128</port><username>p</username>"
+                                + "<password>{encrypted}</password><nonProxyHosts>*.local|dc</nonProxyHosts></proxy>\n"
+                                + "  </proxies>\n"
+                                + "  <servers>\n"
+                                + "    <server><id>dc</id><username>user</username>"
+                                + "<password>${env.NO_SUCH_VAR}</password></server>\n"
+                                + "  </servers>\n"
+                                + "</settings>\n")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        MavenSettings settings = MavenSettings.read(settingsFile);
+
+        assertEquals("dc", settings.getMirror("central", "https://repo.maven.apache.org/maven2/").getId());
+        assertEquals("https://all/", settings.getMirror("other", "https://other/").getUrl());
+        assertNull(settings.getMirror("snapshots", "https://snapshots/"));
+
+        assertEquals("proxy", settings.getProxy("http", "repo.maven.apache.org").getHost());
+        assertEquals(3128, settings.getProxy("http", "repo.maven.apache.org").getPort());
+        assertNull(settings.getProxy("http", "repo.local"));
+        assertNull(settings.getProxy("http", "dc"));
+        assertNull(settings.getProxy("https", "repo.maven.apache.org"));
+        assertNull(settings.getProxy("http", "repo.maven.apache.org").getPassword());
+
+        assertEquals("user", settings.getServer("dc").getUsername());
+        assertEquals("${env.NO_SUCH_VAR}", settings.getServer("dc").getPassword());
+        assertNull(settings.getServer("all"));
+    }
+
+    @Test
+    void readsProxiesLeniently() throws Exception {
+        Path settingsFile = tempFolder.toPath().resolve("settings.xml");
+        Files.write(
+                settingsFile,
+                ("<settings>\n"
+                                + "  <localRepository>/repo</localRepository>\n"
+                                + "  <proxies>\n"
+                                + "    <proxy><host>broken</host><port>${proxy.port}</port></proxy>\n"
+                                + "    <proxy><host>proxy</host>"
+                                + "<nonProxyHosts>a+b.local|(dc)|[x]*</nonProxyHosts></proxy>\n"
+                                + "  </proxies>\n"
+                                + "</settings>\n")
+                        .getBytes(StandardCharsets.UTF_8));
+
+        MavenSettings settings = MavenSettings.read(settingsFile);
+
+        // only the proxy with an invalid port is ignored
+        assertEquals("/repo", settings.getLocalRepository());
+        assertEquals("proxy", settings.getProxy("http", "repo.maven.apache.org").getHost());
+        assertEquals(8080, settings.getProxy("http", "repo.maven.apache.org").getPort());
+        assertNull(settings.getProxy("broken", 0));
+
+        // the non proxy hosts are literal but for *
+        assertNull(settings.getProxy("http", "a+b.local"));
+        assertEquals("proxy", settings.getProxy("http", "aab.local").getHost());
+        assertNull(settings.getProxy("http", "(dc)"));
+        assertEquals("proxy", settings.getProxy("http", "dc").getHost());
+        assertNull(settings.getProxy("http", "[x].example"));
+        assertEquals("proxy", settings.getProxy("http", "x.example").getHost());
+    }
+
+    @Test
+    void defaultsLocalRepositoryToMavenUserHome() {
+        MavenSettings settings = MavenSettings.read(tempFolder.toPath().resolve("missing.xml"));
+
+        assertNull(settings.getLocalRepository());
+        assertEquals(tempFolder.toPath().resolve("repository"), settings.getLocalRepository(tempFolder.toPath()));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.apache.maven.wrapper.InstallListener.Phase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MetricsWriterTest {
+    private static final String ARCHIVE = "https://server/apache-maven-3.9.9-bin.zip";
+
+    @TempDir
+    private File tempFolder;
+
+    @Test
+    void testRunsAggregated() throws Exception {
+        Path file = tempFolder.toPath().resolve("wrapper").resolve(MetricsWriter.METRICS_FILE);
+
+        // cold run, downloading and extracting the distribution
+        long start = System.nanoTime();
+        MetricsWriter cold = new MetricsWriter(file, start);
+        cold.started(Phase.DOWNLOAD, ARCHIVE, start);
+        cold.ended(Phase.DOWNLOAD, ARCHIVE, 1000, null, start + 20_000_000L);
+        cold.started(Phase.DOWNLOAD, ARCHIVE + ".sha512", start);
+        cold.ended(Phase.DOWNLOAD, ARCHIVE + ".sha512", 128, null, start);
+        cold.started(Phase.VERIFY, "archive", start);
+        cold.ended(Phase.VERIFY, "archive", 1000, null, start + 500_000_000L);
+        cold.started(Phase.EXTRACT, "archive", start);
+        cold.ended(Phase.EXTRACT, "archive", 1000, null, start + 2_000_000_000L);
+        cold.started(Phase.LAUNCH, "home", start);
+        cold.ended(Phase.LAUNCH, "home", -1, null, start + 3_000_000_000L);
+
+        // warm run
+        MetricsWriter warm = new MetricsWriter(file, start);
+        warm.cached(Phase.DOWNLOAD, ARCHIVE, start);
+        warm.cached(Phase.EXTRACT, "home", start);
+        warm.started(Phase.LAUNCH, "home", start);
+        warm.ended(Phase.LAUNCH, "home", -1, null, start + 40_000_000L);
+
+        // failed run
+        MetricsWriter failed = new MetricsWriter(file, start);
+        failed.started(Phase.DOWNLOAD, ARCHIVE, start);
+        failed.ended(Phase.DOWNLOAD, ARCHIVE, -1, new IOException("broken"), start);
+        failed.started(Phase.INSTALL, "home", start);
+        failed.ended(Phase.INSTALL, "home", -1, new IOException("broken"), start);
+
+        Map<String, Double> values = MetricsWriter.read(file);
+        assertEquals(2.0, values.get("mvnw_runs_total"));
+        assertEquals(1128.0, values.get("mvnw_download_bytes_total"));
+        assertEquals(1.0, values.get("mvnw_download_failures_total"));
+        assertEquals(1.0, values.get("mvnw_install_failures_total"));
+        assertEquals(0.5, values.get("mvnw_verify_seconds_total"));
+        assertEquals(1.0, values.get("mvnw_cache_hits_total{phase=\"download\"}"));
+        assertEquals(1.0, values.get("mvnw_cache_misses_total{phase=\"download\"}"));
+        assertEquals(1.0, values.get("mvnw_cache_hits_total{phase=\"extract\"}"));
+        assertEquals(1.0, values.get("mvnw_cache_misses_total{phase=\"extract\"}"));
+        assertEquals(0.0, values.get("mvnw_download_seconds_bucket{le=\"0.01\"}"));
+        assertEquals(1.0, values.get("mvnw_download_seconds_bucket{le=\"0.025\"}"));
+        assertEquals(1.0, values.get("mvnw_download_seconds_bucket{le=\"+Inf\"}"));
+        assertEquals(0.02, values.get("mvnw_download_seconds_sum"));
+        assertEquals(1.0, values.get("mvnw_extract_seconds_bucket{le=\"2.5\"}"));
+        assertEquals(1.0, values.get("mvnw_warm_start_seconds_count"));
+        assertEquals(0.04, values.get("mvnw_warm_start_seconds_sum"));
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertTrue(lines.contains("# TYPE mvnw_runs_total counter"));
+        assertTrue(lines.contains("mvnw_runs_total 2"));
+        assertTrue(lines.contains("# TYPE mvnw_warm_start_seconds histogram"));
+        assertTrue(lines.stream().noneMatch(line -> line.equals("# EOF")));
+        try (Stream<Path> files = Files.list(file.getParent())) {
+            assertEquals(1, files.filter(f -> f.toString().endsWith(".prom")).count());
+        }
+    }
+
+    @Test
+    void testConcurrentDownloadsOfSameArchive() throws Exception {
+        Path file = tempFolder.toPath().resolve("wrapper").resolve(MetricsWriter.METRICS_FILE);
+        long start = System.nanoTime();
+        MetricsWriter writer = new MetricsWriter(file, start);
+
+        // two ranges downloaded at once, the first one ending last
+        writer.started(Phase.DOWNLOAD, ARCHIVE, start);
+        Thread thread = new Thread(() -> {
+            writer.started(Phase.DOWNLOAD, ARCHIVE, start + 10_000_000L);
+            writer.ended(Phase.DOWNLOAD, ARCHIVE, 500, null, start + 30_000_000L);
+        });
+        thread.start();
+        thread.join();
+        writer.ended(Phase.DOWNLOAD, ARCHIVE, 500, null, start + 200_000_000L);
+        writer.flush();
+
+        Map<String, Double> values = MetricsWriter.read(file);
+        assertEquals(2.0, values.get("mvnw_download_seconds_count"));
+        assertEquals(1.0, values.get("mvnw_download_seconds_bucket{le=\"0.025\"}"));
+        assertEquals(0.22, values.get("mvnw_download_seconds_sum"), 1e-9);
+    }
+}
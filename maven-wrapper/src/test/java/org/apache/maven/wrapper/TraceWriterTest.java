@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.apache.maven.wrapper.InstallListener.Phase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TraceWriterTest {
+    @TempDir
+    private File tempFolder;
+
+    @Test
+    void testPhasesWrittenAsTraceEvents() throws Exception {
+        Path file = tempFolder.toPath().resolve("trace.json");
+        TraceWriter writer = new TraceWriter(file, System.nanoTime());
+
+        long start = System.nanoTime();
+        writer.started(Phase.DOWNLOAD, "https://example.com/\"maven\".zip", start);
+        writer.ended(Phase.DOWNLOAD, "https://example.com/\"maven\".zip", 42, null, start + 3_000_000);
+        writer.started(Phase.EXTRACT, "maven.zip", start);
+        writer.ended(Phase.EXTRACT, "maven.zip", -1, new IOException("broken"), start + 1_000_000);
+        writer.cached(Phase.DOWNLOAD, "maven.zip", start);
+        // not started, ignored
+        writer.ended(Phase.VERIFY, "maven.zip", -1, null, start);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals("[", lines.get(0));
+        assertTrue(lines.stream().skip(1).allMatch(line -> line.startsWith("{") && line.endsWith("},")));
+        assertTrue(find(lines, "\"name\":\"JVM_STARTUP\"").contains("\"ph\":\"X\""));
+        assertEquals(1, count(lines, "\"name\":\"thread_name\""));
+
+        String download = find(lines, "\"name\":\"DOWNLOAD\",\"cat\":\"maven-wrapper\",\"ph\":\"X\"");
+        assertTrue(download.contains("\"dur\":3000,"));
+        assertTrue(download.contains("\"subject\":\"https://example.com/\\\"maven\\\".zip\",\"bytes\":42}"));
+        assertTrue(find(lines, "\"name\":\"EXTRACT\"").contains("\"failure\":\"java.io.IOException: broken\""));
+        assertTrue(find(lines, "\"ph\":\"i\"").contains("\"cacheHit\":true"));
+        assertEquals(0, count(lines, "\"name\":\"VERIFY\""));
+
+        // appended by the next run, after the events of the scripts
+        Files.write(file, "{\"name\":\"CONFIGURE\"},\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        new TraceWriter(file, System.nanoTime());
+        lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(1, count(lines, "["));
+        assertEquals(2, count(lines, "\"name\":\"JVM_STARTUP\""));
+    }
+
+    @Test
+    void testConcurrentPhasesOfSameSubject() throws Exception {
+        Path file = tempFolder.toPath().resolve("trace.json");
+        TraceWriter writer = new TraceWriter(file, System.nanoTime());
+
+        // two ranges of an archive downloaded at once, the first one ending last
+        long start = System.nanoTime();
+        writer.started(Phase.DOWNLOAD, "maven.zip", start);
+        Thread thread = new Thread(() -> {
+            writer.started(Phase.DOWNLOAD, "maven.zip", start + 1_000_000);
+            writer.ended(Phase.DOWNLOAD, "maven.zip", 2, null, start + 3_000_000);
+        });
+        thread.start();
+        thread.join();
+        writer.ended(Phase.DOWNLOAD, "maven.zip", 1, null, start + 5_000_000);
+
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(2, count(lines, "\"name\":\"DOWNLOAD\""));
+        assertTrue(find(lines, "\"bytes\":2}").contains("\"dur\":2000,"));
+        assertTrue(find(lines, "\"bytes\":1}").contains("\"dur\":5000,"));
+    }
+
+    @Test
+    void testEscape() {
+        assertEquals("a\\\\b\\\"c\\u000a", TraceWriter.escape("a\\b\"c\n"));
+    }
+
+    private static String find(List<String> lines, String text) {
+        return lines.stream().filter(line -> line.contains(text)).findFirst().orElse("");
+    }
+
+    private static long count(List<String> lines, String text) {
+        return lines.stream().filter(line -> line.contains(text)).count();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.wrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.codehaus.plexus.classworlds.launcher.Launcher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs the warm path of the wrapper, with the distribution already installed, in forked JVMs, and checks its cost on
+ * top of a JVM starting the launcher of the distribution directly. The budgets are the costs measured on JDK 17, 243
+ * classes and 1 MB, plus about 20 %: loading another part of the JDK on the warm path, like the XML parser, exceeds
+ * them, and they are to be lowered along with the costs. The time depends on the load of the machine, it is only
+ * checked against a budget given by the {@code mvnw.warmStartMillisBudget} system property.
+ */
+class WarmStartBudgetTest {
+    /** Classes the wrapper may load before launching Maven. */
+    private static final long CLASSES_BUDGET = 300;
+
+    /** Bytes the wrapper may allocate on the main thread before launching Maven. */
+    private static final long ALLOCATED_BUDGET = 1280L * 1024;
+
+    /** System property of the time the wrapper may add to the JVM startup before launching Maven, in milliseconds. */
+    private static final String MILLIS_BUDGET_PROPERTY = "mvnw.warmStartMillisBudget";
+
+    private static final int RUNS = 3;
+
+    private static final Pattern LAUNCHED = Pattern.compile("launched classes=(\\d+) allocated=(\\d+) millis=(\\d+)");
+
+    @TempDir
+    private File tempFolder;
+
+    private Path mavenUserHome;
+
+    private Path projectDir;
+
+    private Path launcherJar;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        mavenUserHome = tempFolder.toPath().resolve("m2");
+        projectDir = tempFolder.toPath().resolve("project");
+        Path propertiesFile = projectDir.resolve(".mvn/wrapper/maven-wrapper.properties");
+        Files.createDirectories(propertiesFile.getParent());
+        Files.write(
+                propertiesFile,
+                ("distributionUrl=https://repo.maven.apache.org/maven2/org/apache/maven/apache-maven/3.9.9/"
+                                + "apache-maven-3.9.9-bin.zip\n")
+                        .getBytes(StandardCharsets.UTF_8));
+        writeWrapperJar(projectDir.resolve(".mvn/wrapper/maven-wrapper.jar"));
+
+        // an installed distribution, only holding the launcher
+        WrapperConfiguration configuration =
+                WrapperExecutor.forWrapperPropertiesFile(propertiesFile).getConfiguration();
+        PathAssembler.LocalDistribution distribution =
+                new PathAssembler(mavenUserHome).getDistribution(configuration);
+        Files.createDirectories(distribution.getZipFile().getParent());
+        Files.write(distribution.getZipFile(), new byte[0]);
+        launcherJar = distribution.getDistributionDir().resolve("apache-maven-3.9.9/boot/plexus-classworlds-2.8.0.jar");
+        Files.createDirectories(launcherJar.getParent());
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(launcherJar))) {
+            String entry = Launcher.class.getName().replace('.', '/') + ".class";
+            jar.putNextEntry(new JarEntry(entry));
+            copy(Launcher.class.getClassLoader().getResourceAsStream(entry), jar);
+        }
+    }
+
+    @Test
+    void testWarmStartWithinBudget() throws Exception {
+        long[] baseline = run("-cp", launcherJar.toString(), Launcher.class.getName());
+        long[] wrapper = run(
+                "-Dmaven.user.home=" + mavenUserHome,
+                "-cp",
+                projectDir.resolve(".mvn/wrapper/maven-wrapper.jar").toString(),
+                MavenWrapperMain.class.getName(),
+                "-v");
+
+        long classes = wrapper[0] - baseline[0];
+        long allocated = wrapper[1] - baseline[1];
+        long millis = wrapper[2] - baseline[2];
+        String costs = "warm start cost: " + classes + " classes, " + allocated + " bytes, " + millis + " ms";
+        assertTrue(classes <= CLASSES_BUDGET, costs + ", over the budget of " + CLASSES_BUDGET + " classes");
+        assertTrue(allocated <= ALLOCATED_BUDGET, costs + ", over the budget of " + ALLOCATED_BUDGET + " bytes");
+        Long millisBudget = Long.getLong(MILLIS_BUDGET_PROPERTY);
+        if (millisBudget != null) {
+            assertTrue(millis <= millisBudget, costs + ", over the budget of " + millisBudget + " ms");
+        }
+    }
+
+    /**
+     * @return the lowest loaded classes, allocated bytes and milliseconds of the runs, the ones least disturbed
+     */
+    private long[] run(String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(args));
+        long[] lowest = {Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE};
+        for (int i = 0; i < RUNS; i++) {
+            ProcessBuilder builder =
+                    new ProcessBuilder(command).directory(projectDir.toFile()).redirectErrorStream(true);
+            Map<String, String> environment = builder.environment();
+            environment.keySet().removeIf(key -> key.startsWith("MVNW_") || key.startsWith("MAVEN_"));
+            Process process = builder.start();
+            String output;
+            try (InputStream in = process.getInputStream()) {
+                output = new String(readAll(in), StandardCharsets.UTF_8);
+            }
+            if (!process.waitFor(60, TimeUnit.SECONDS) || process.exitValue() != 0) {
+                fail("Run of " + command + " failed: " + output);
+            }
+            Matcher matcher = LAUNCHED.matcher(output);
+            if (!matcher.find()) {
+                fail("Run of " + command + " did not launch Maven: " + output);
+            }
+            for (int j = 0; j < lowest.length; j++) {
+                lowest[j] = Math.min(lowest[j], Long.parseLong(matcher.group(j + 1)));
+            }
+        }
+        return lowest;
+    }
+
+    /**
+     * Packages the wrapper classes like the wrapper JAR of a project.
+     */
+    private static void writeWrapperJar(Path wrapperJar) throws Exception {
+        Path classes = Paths.get(
+                MavenWrapperMain.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        try (JarOutputStream jar = new JarOutputStream(Files.newOutputStream(wrapperJar));
+                Stream<Path> files = Files.walk(classes)) {
+            for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                jar.putNextEntry(new JarEntry(classes.relativize(file).toString().replace(File.separatorChar, '/')));
+                copy(Files.newInputStream(file), jar);
+            }
+            jar.putNextEntry(new JarEntry("META-INF/maven/org.apache.maven.wrapper/maven-wrapper/pom.properties"));
+            jar.write("version=test\n".getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        try (InputStream input = in) {
+            out.write(readAll(input));
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        for (int n; (n = in.read(buffer)) != -1; ) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
@@ -23,6 +23,7 @@ import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -116,6 +117,22 @@ public class WrapperExecutorTest {
                 Installer.DEFAULT_DISTRIBUTION_PATH, wrapper.getConfiguration().getZipPath());
     }
 
+    @Test
+    void invalidMaxStalenessKeepsDefault() throws Exception {
+        properties.put("maxStaleness", "12h");
+        writePropertiesFile(properties, propertiesFile, "header");
+
+        WrapperExecutor wrapper = WrapperExecutor.forWrapperPropertiesFile(propertiesFile);
+
+        assertEquals(WrapperConfiguration.DEFAULT_MAX_STALENESS, wrapper.getConfiguration().getMaxStaleness());
+
+        properties.put("maxStaleness", "PT12H");
+        writePropertiesFile(properties, propertiesFile, "header");
+        wrapper = WrapperExecutor.forWrapperPropertiesFile(propertiesFile);
+
+        assertEquals(Duration.ofHours(12), wrapper.getConfiguration().getMaxStaleness());
+    }
+
     @Test
     void propertiesFileOnlyContainsDistURL() throws Exception {
 
@@ -249,6 +266,70 @@ public class WrapperExecutorTest {
                 wrapper.getDistribution().toString());
     }
 
+    @Test
+    void testMvndPlatformDistribution() throws Exception {
+        final Map<String, String> environmentVariables = new HashMap<>();
+        environmentVariables.put(MVNW_REPOURL, "https://repo/test");
+        properties = new Properties();
+        properties.put("distributionUrl", "https://server/dist/maven/mvnd/1.0.2/maven-mvnd-1.0.2-bin.zip");
+        writePropertiesFile(properties, propertiesFile, "header");
+
+        WrapperExecutor wrapper = new WrapperExecutor(propertiesFile, new Properties()) {
+            @Override
+            protected String getEnv(String key) {
+                return environmentVariables.get(key);
+            }
+
+            @Override
+            protected String getMvndPlatform() {
+                return "linux-amd64";
+            }
+        };
+
+        assertEquals(
+                "https://repo/test/maven/mvnd/1.0.2/maven-mvnd-1.0.2-linux-amd64.zip",
+                wrapper.getDistribution().toString());
+    }
+
+    @Test
+    void testMvndUnknownPlatformDistribution() throws Exception {
+        properties = new Properties();
+        properties.put("distributionUrl", "https://server/dist/maven/mvnd/1.0.2/maven-mvnd-1.0.2-bin.zip");
+        writePropertiesFile(properties, propertiesFile, "header");
+
+        WrapperExecutor wrapper = new WrapperExecutor(propertiesFile, new Properties()) {
+            @Override
+            protected String getMvndPlatform() {
+                return null;
+            }
+        };
+
+        assertEquals(
+                "https://server/dist/maven/mvnd/1.0.2/maven-mvnd-1.0.2-linux-amd64.zip",
+                wrapper.getDistribution().toString());
+    }
+
+    @Test
+    void testMvndPlatformDistributionSha256Sum() throws Exception {
+        properties = new Properties();
+        properties.put("distributionUrl", "https://server/dist/maven/mvnd/1.0.2/maven-mvnd-1.0.2-bin.zip");
+        properties.put("distributionSha256Sum", "generic");
+        properties.put("distributionSha256Sum.darwin-aarch64", "darwin");
+        writePropertiesFile(properties, propertiesFile, "header");
+
+        assertEquals("darwin", mvndWrapperExecutor("darwin-aarch64").getConfiguration().getDistributionSha256Sum());
+        assertEquals("generic", mvndWrapperExecutor("linux-amd64").getConfiguration().getDistributionSha256Sum());
+    }
+
+    private WrapperExecutor mvndWrapperExecutor(String platform) {
+        return new WrapperExecutor(propertiesFile, new Properties()) {
+            @Override
+            protected String getMvndPlatform() {
+                return platform;
+            }
+        };
+    }
+
     private WrapperExecutor prepareWrapperExecutorWithEnvironmentVariables(
             final Map<String, String> environmentVariables) {
         return new WrapperExecutor(propertiesFile, new Properties()) {